@@ -28,6 +28,20 @@ dependencies {
 }
 
 tasks.test {
-    // Use JUnit Platform for unit tests.
-    useJUnitPlatform()
+    // Use JUnit Platform for unit tests, leaving out timing runs and exhaustive searches.
+    useJUnitPlatform {
+        excludeTags("benchmark", "slow")
+    }
+}
+
+// Runs only the tests left out of the unit suite.
+tasks.register<Test>("benchmark") {
+    description = "Runs the benchmark and slow tests."
+    group = "verification"
+    testClassesDirs = sourceSets["test"].output.classesDirs
+    classpath = sourceSets["test"].runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark", "slow")
+    }
+    testLogging.showStandardStreams = true
 }
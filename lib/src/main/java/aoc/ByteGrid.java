@@ -0,0 +1,17 @@
+package aoc;
+
+//  Dense row-major grid of bytes, cell (i, j) is cells[i * width + j]
+public record ByteGrid(int width, int height, byte[] cells) {
+
+    public byte get(int i, int j) {
+        return cells[i * width + j];
+    }
+
+    public byte get(Pos pos) {
+        return get(pos.i(), pos.j());
+    }
+
+    public boolean within(int i, int j) {
+        return i >= 0 && i < height && j >= 0 && j < width;
+    }
+}
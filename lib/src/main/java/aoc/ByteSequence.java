@@ -0,0 +1,49 @@
+package aoc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//  ASCII view over a region of a byte buffer, reused between lines by the zero-copy readers
+class ByteSequence implements CharSequence {
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    ByteSequence() {
+    }
+
+    ByteSequence(ByteBuffer buffer, int offset, int length) {
+        set(buffer, offset, length);
+    }
+
+    ByteSequence set(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+        return (char) (buffer.get(offset + index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) throw new IndexOutOfBoundsException(start);
+        return new ByteSequence(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,70 @@
+package aoc;
+
+import java.util.function.LongConsumer;
+
+//  Pos packed into a long, i in the high and j in the low 32 bits, for allocation-free grids
+public final class Coord {
+    private Coord() {
+    }
+
+    public static long of(int i, int j) {
+        return ((long) i << 32) | (j & 0xffffffffL);
+    }
+
+    public static long of(Pos pos) {
+        return of(pos.i(), pos.j());
+    }
+
+    public static int i(long coord) {
+        return (int) (coord >> 32);
+    }
+
+    public static int j(long coord) {
+        return (int) coord;
+    }
+
+    public static Pos toPos(long coord) {
+        return Pos.of(i(coord), j(coord));
+    }
+
+    public static long plus(long coord, int di, int dj) {
+        return of(i(coord) + di, j(coord) + dj);
+    }
+
+    //  Same order as Pos.adjacentWithDiagonals
+    public static void forEachAdjacentWithDiagonals(long coord, LongConsumer consumer) {
+        forEach(coord, Pos.WITH_DIAGONALS_I, Pos.WITH_DIAGONALS_J, consumer);
+    }
+
+    //  Same order as Pos.adjacentWithoutDiagonals
+    public static void forEachAdjacentWithoutDiagonals(long coord, LongConsumer consumer) {
+        forEach(coord, Pos.WITHOUT_DIAGONALS_I, Pos.WITHOUT_DIAGONALS_J, consumer);
+    }
+
+    //  Row by row, same order as Pos.surrounding3x3Ordered
+    public static void forEachSurrounding3x3Ordered(long coord, LongConsumer consumer) {
+        forEach(coord, Pos.SURROUNDING_I, Pos.SURROUNDING_J, consumer);
+    }
+
+    private static void forEach(long coord, int[] di, int[] dj, LongConsumer consumer) {
+        int i = i(coord);
+        int j = j(coord);
+        for (int k = 0; k < di.length; k++) {
+            consumer.accept(of(i + di[k], j + dj[k]));
+        }
+    }
+
+    public static boolean within(long coord, int minI, int maxI, int minJ, int maxJ) {
+        int i = i(coord);
+        int j = j(coord);
+        return (minI <= i && i <= maxI) && (minJ <= j && j <= maxJ);
+    }
+
+    public static int manhattanDistance(long from, long to) {
+        return Math.abs(i(from) - i(to)) + Math.abs(j(from) - j(to));
+    }
+
+    public static String toString(long coord) {
+        return "(" + i(coord) + "," + j(coord) + ")";
+    }
+}
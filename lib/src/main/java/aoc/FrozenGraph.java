@@ -0,0 +1,298 @@
+package aoc;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+//  Immutable compressed sparse row snapshot of a Graph: edges of node id are targets[offsets[id]..offsets[id + 1]]
+public class FrozenGraph<N> implements IndexedGraph {
+    private final Map<N, Integer> ids;
+    private final List<N> nodes;
+    private final int[] offsets;
+    private final int[] targets;
+    private final long[] weights;
+    //  Edge weights as given to the graph, for searches with their own weight type
+    private final Object[] labels;
+
+    <W> FrozenGraph(Graph<N, W> graph) {
+        ids = new HashMap<>(graph.ids);
+        nodes = List.copyOf(graph.nodes);
+        offsets = new int[nodes.size() + 1];
+
+        for (int id = 0; id < nodes.size(); id++) {
+            offsets[id + 1] = offsets[id] + graph.connections.getOrDefault(nodes.get(id), List.of()).size();
+        }
+
+        targets = new int[offsets[nodes.size()]];
+        weights = new long[offsets[nodes.size()]];
+        labels = new Object[offsets[nodes.size()]];
+
+        for (int id = 0; id < nodes.size(); id++) {
+            int edge = offsets[id];
+            for (Pair<N, W> connection : graph.connections.getOrDefault(nodes.get(id), List.of())) {
+                targets[edge] = ids.get(connection.key());
+                weights[edge] = Graph.weightOf(connection.value());
+                labels[edge] = connection.value();
+                edge++;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public void forEachEdge(int node, EdgeConsumer consumer) {
+        for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+            consumer.accept(targets[edge], weights[edge]);
+        }
+    }
+
+    public int id(N node) {
+        Integer id = ids.get(node);
+        if (id == null) throw new NoSuchElementException(String.valueOf(node));
+        return id;
+    }
+
+    public N node(int id) {
+        return nodes.get(id);
+    }
+
+    public LongDistances<N> shortestPaths(N first) {
+        return new LongDistances<>(ids, nodes, shortestPaths(id(first)));
+    }
+
+    public ShortestPath<N> shortestPath(N first, N target) {
+        return new IndexedDijkstra(this).path(id(first), id(target), nodes::get);
+    }
+
+    public ShortestPath<N> aStar(N first, N target, ToLongFunction<N> heuristic) {
+        return new IndexedDijkstra(this, node -> heuristic.applyAsLong(nodes.get(node)))
+                .path(id(first), id(target), nodes::get);
+    }
+
+    //  See Graph.dijkstra. Values are kept per id, the queue holds ids with the value they were offered at
+    //  and entries superseded by a smaller value are skipped when polled.
+    @SuppressWarnings("unchecked")
+    <W, T extends Comparable<T>> Map<N, T> dijkstra(int first, int target, Function<W, T> weight, BiFunction<T, T, T> addition, T zero) {
+        Object[] values = new Object[size()];
+        boolean[] visited = new boolean[size()];
+        PriorityQueue<Pair<Integer, T>> toVisit = new PriorityQueue<>(Comparator.comparing(Pair::value));
+
+        values[first] = zero;
+        toVisit.offer(new Pair<>(first, zero));
+
+        while (!toVisit.isEmpty()) {
+            Pair<Integer, T> next = toVisit.poll();
+            int current = next.key();
+            if (visited[current]) continue;
+            visited[current] = true;
+
+            if (current == target) break;
+
+            for (int edge = offsets[current]; edge < offsets[current + 1]; edge++) {
+                int to = targets[edge];
+                if (visited[to]) continue;
+
+                T value = addition.apply(next.value(), weight.apply((W) labels[edge]));
+                T known = (T) values[to];
+                if (known == null || value.compareTo(known) < 0) {
+                    values[to] = value;
+                    toVisit.offer(new Pair<>(to, value));
+                }
+            }
+        }
+
+        Map<N, T> result = new HashMap<>();
+        for (int id = 0; id < size(); id++) {
+            if (values[id] != null) result.put(nodes.get(id), (T) values[id]);
+        }
+        return result;
+    }
+
+    //  See Graph.allPaths
+    public Set<List<N>> allPaths(N start, N end, VisitPolicy<N> policy) {
+        Set<List<N>> paths = new HashSet<>();
+        new PolicyDfs(policy, (path, depth) -> {
+            List<N> found = new ArrayList<>(depth);
+            for (int k = 0; k < depth; k++) found.add(nodes.get(path[k]));
+            paths.add(found);
+        }, new int[size()], new int[16], 0, id(end)).visit(id(start));
+        return paths;
+    }
+
+    //  See Graph.countPaths
+    public long countPaths(N start, N end, VisitPolicy<N> policy) {
+        long[] count = new long[1];
+        new PolicyDfs(policy, (path, depth) -> count[0]++, new int[size()], new int[16], 0, id(end)).visit(id(start));
+        return count[0];
+    }
+
+    //  See Graph.countPathsParallel
+    public long countPathsParallel(N start, N end, VisitPolicy<N> policy, int splitDepth) {
+        //  Tasks push onto their policy, so even the root one works on a copy and leaves the caller's alone
+        return ForkJoinPool.commonPool().invoke(new PathTask(
+                VisitPolicy.copyOf(policy), new int[size()], new int[16], 0, id(start), id(end), splitDepth));
+    }
+
+    //  See Graph.countPaths
+    public long countPaths(N start, N end, Predicate<N> once, boolean allowRevisit) {
+        long[] bits = new long[size()];
+        int onceCount = 0;
+        for (int id = 0; id < size(); id++) {
+            if (once.test(nodes.get(id))) {
+                if (onceCount == 62) {
+                    throw new IllegalArgumentException("Too many nodes to visit once: " + nodes.stream().filter(once).count());
+                }
+                bits[id] = 1L << onceCount++;
+            }
+        }
+
+        int startId = id(start);
+        PathCounter counter = new PathCounter(bits, startId, id(end), allowRevisit);
+        return counter.count(startId, bits[startId], false);
+    }
+
+    @FunctionalInterface
+    private interface PathSink {
+        void accept(int[] path, int depth);
+    }
+
+    private class PolicyDfs {
+        final VisitPolicy<N> policy;
+        final VisitPolicy.Stateful<N> hooks;
+        final PathSink sink;
+        final int[] visits;
+        final int end;
+        int[] path;
+        int depth;
+
+        PolicyDfs(VisitPolicy<N> policy, PathSink sink, int[] visits, int[] path, int depth, int end) {
+            this.policy = policy;
+            this.hooks = policy instanceof VisitPolicy.Stateful<N> stateful ? stateful : null;
+            this.sink = sink;
+            this.visits = visits;
+            this.path = path;
+            this.depth = depth;
+            this.end = end;
+        }
+
+        void visit(int node) {
+            N value = nodes.get(node);
+            if (!policy.canVisit(value, visits[node])) return;
+
+            if (depth == path.length) path = Arrays.copyOf(path, depth * 2);
+            path[depth++] = node;
+            ++visits[node];
+            if (hooks != null) hooks.pushed(value, visits[node]);
+            try {
+                if (node == end) {
+                    sink.accept(path, depth);
+                    return;
+                }
+                for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                    visit(targets[edge]);
+                }
+            } finally {
+                if (hooks != null) hooks.popped(value, visits[node]);
+                visits[node]--;
+                depth--;
+            }
+        }
+    }
+
+    private class PathTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        final VisitPolicy<N> policy;
+        final int[] visits;
+        final int[] path;
+        final int depth;
+        final int node;
+        final int end;
+        final int splitDepth;
+
+        PathTask(VisitPolicy<N> policy, int[] visits, int[] path, int depth, int node, int end, int splitDepth) {
+            this.policy = policy;
+            this.visits = visits;
+            this.path = path;
+            this.depth = depth;
+            this.node = node;
+            this.end = end;
+            this.splitDepth = splitDepth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth >= splitDepth) {
+                long[] count = new long[1];
+                new PolicyDfs(policy, (found, length) -> count[0]++, visits, path, depth, end).visit(node);
+                return count[0];
+            }
+
+            N value = nodes.get(node);
+            if (!policy.canVisit(value, visits[node])) return 0L;
+            if (node == end) return 1L;
+
+            int[] prefix = Arrays.copyOf(path, Math.max(path.length, depth + 1));
+            prefix[depth] = node;
+            ++visits[node];
+            if (policy instanceof VisitPolicy.Stateful<N> stateful) stateful.pushed(value, visits[node]);
+
+            List<PathTask> tasks = new ArrayList<>(offsets[node + 1] - offsets[node]);
+            for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                tasks.add(new PathTask(VisitPolicy.copyOf(policy), visits.clone(), prefix.clone(), depth + 1, targets[edge], end, splitDepth));
+            }
+
+            long total = 0;
+            for (PathTask task : invokeAll(tasks)) {
+                total += task.join();
+            }
+            return total;
+        }
+    }
+
+    private class PathCounter {
+        final long[] bits;
+        final int start;
+        final int end;
+        final boolean allowRevisit;
+        final List<Map<Long, Long>> memo = new ArrayList<>(Collections.nCopies(size(), null));
+
+        PathCounter(long[] bits, int start, int end, boolean allowRevisit) {
+            this.bits = bits;
+            this.start = start;
+            this.end = end;
+            this.allowRevisit = allowRevisit;
+        }
+
+        long count(int node, long visited, boolean revisited) {
+            if (node == end) return 1;
+
+            long key = visited << 1 | (revisited ? 1 : 0);
+            if (memo.get(node) == null) memo.set(node, new HashMap<>());
+            Long known = memo.get(node).get(key);
+            if (known != null) return known;
+
+            long total = 0;
+            for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                int next = targets[edge];
+                long bit = bits[next];
+                if ((visited & bit) == 0) {
+                    total += count(next, visited | bit, revisited);
+                } else if (allowRevisit && !revisited && next != start && next != end) {
+                    total += count(next, visited, true);
+                }
+            }
+
+            memo.get(node).put(key, total);
+            return total;
+        }
+    }
+}
@@ -2,10 +2,20 @@ package aoc;
 
 import java.util.*;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public abstract class Graph<N, W> {
     Map<N, List<Pair<N, W>>> connections = new HashMap<>();
+    //  Dense node ids in order of appearance, used by the primitive engines
+    final Map<N, Integer> ids = new HashMap<>();
+    final List<N> nodes = new ArrayList<>();
+    //  CSR form shared by the queries below, dropped whenever an edge is added
+    private FrozenGraph<N> frozen;
 
     public void addEdge(N a, N b) {
         addEdge(a, b, null);
@@ -13,6 +23,32 @@ public abstract class Graph<N, W> {
 
     protected abstract void addEdge(N a, N b, W weight);
 
+    protected void connect(N a, N b, W weight) {
+        index(a);
+        index(b);
+        connections.computeIfAbsent(a, k -> new ArrayList<>()).add(new Pair<>(b, weight));
+        frozen = null;
+    }
+
+    FrozenGraph<N> frozen() {
+        FrozenGraph<N> current = frozen;
+        if (current == null) {
+            current = freeze();
+            frozen = current;
+        }
+        return current;
+    }
+
+    protected int index(N node) {
+        Integer id = ids.get(node);
+        if (id == null) {
+            id = nodes.size();
+            ids.put(node, id);
+            nodes.add(node);
+        }
+        return id;
+    }
+
     //  Spanning trees
     public Set<List<N>> dfs(N start, N end, BiFunction<Stack<N>, N, Boolean> canVisit) {
         HashSet<List<N>> allPaths = new HashSet<>();
@@ -42,53 +78,248 @@ public abstract class Graph<N, W> {
         }
     }
 
-    public Map<N, Long> dijkstraLong(N first) {
-        return dijkstra(first, value -> ((Number) value).longValue(), Long::sum, 0L);
+    //  Compacts the graph into int ids and flat edge arrays, later changes to this graph are not reflected
+    public FrozenGraph<N> freeze() {
+        return new FrozenGraph<>(this);
     }
 
-    public <T extends Comparable<T>> Map<N, T> dijkstra(N first, Function<W, T> weight, BiFunction<T, T, T> addition, T zero) {
-        Map<N, T> result = new HashMap<>();
+    //  Same paths as dfs, but the policy sees visit counts kept up to date on push and pop instead of the path
+    public Set<List<N>> allPaths(N start, N end, VisitPolicy<N> policy) {
+        if (!ids.containsKey(start) || !ids.containsKey(end)) return Set.of();
+        return frozen().allPaths(start, end, policy);
+    }
 
-        result.put(first, zero);
+    //  Counts every path found by allPaths, parallel edges included, without materialising any
+    public long countPaths(N start, N end, VisitPolicy<N> policy) {
+        if (!ids.containsKey(start) || !ids.containsKey(end)) return 0;
+        return frozen().countPaths(start, end, policy);
+    }
 
-        Set<N> visited = new HashSet<>();
-        Map<N, T> toVisit = new HashMap<>();
+    //  Splits the search into fork/join tasks, one per branch, for the first splitDepth levels.
+    //  Every task gets its own copy of the path, visit counters and policy.
+    public long countPathsParallel(N start, N end, VisitPolicy<N> policy, int splitDepth) {
+        if (!ids.containsKey(start) || !ids.containsKey(end)) return 0;
+        return frozen().countPathsParallel(start, end, policy, splitDepth);
+    }
 
-        N current = first;
+    //  Lazy dfs, paths are produced one at a time as the stream is consumed.
+    //  Unlike dfs the paths are not collected into a set, parallel edges yield repeated paths.
+    public Stream<List<N>> paths(N start, N end, BiFunction<Stack<N>, N, Boolean> canVisit) {
+        return StreamSupport.stream(new PathSpliterator(start, end, canVisit), false);
+    }
 
-        do {
-            for (Pair<N, W> edge : connections.getOrDefault(current, List.of())) {
-                T value = addition.apply(result.get(current), weight.apply(edge.value()));
+    private class PathSpliterator extends Spliterators.AbstractSpliterator<List<N>> {
+        private final Stack<N> path = new Stack<>();
+        private final Deque<Iterator<Pair<N, W>>> pending = new ArrayDeque<>();
+        private final N end;
+        private final BiFunction<Stack<N>, N, Boolean> canVisit;
+        private N start;
 
-                result.compute(edge.key(), (node, nodeValue) -> {
-                    if (nodeValue == null) return value;
-                    return nodeValue.compareTo(value) < 0 ? nodeValue : value;
-                });
+        PathSpliterator(N start, N end, BiFunction<Stack<N>, N, Boolean> canVisit) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.start = start;
+            this.end = end;
+            this.canVisit = canVisit;
+        }
 
-                if (!visited.contains(edge.key())) {
-                    toVisit.put(edge.key(), result.get(edge.key()));
+        @Override
+        public boolean tryAdvance(Consumer<? super List<N>> action) {
+            if (start != null) {
+                N first = start;
+                start = null;
+                if (canVisit.apply(path, first) && enter(first, action)) return true;
+            }
+            while (!pending.isEmpty()) {
+                Iterator<Pair<N, W>> adjacent = pending.peek();
+                if (!adjacent.hasNext()) {
+                    pending.pop();
+                    path.pop();
+                    continue;
                 }
+                N next = adjacent.next().key();
+                if (canVisit.apply(path, next) && enter(next, action)) return true;
             }
+            return false;
+        }
+
+        //  Returns true if a complete path was emitted
+        private boolean enter(N next, Consumer<? super List<N>> action) {
+            path.push(next);
+            if (next.equals(end)) {
+                action.accept(List.copyOf(path));
+                path.pop();
+                return true;
+            }
+            pending.push(connections.getOrDefault(next, List.of()).iterator());
+            return false;
+        }
+    }
+
+    //  Counts the paths dfs would find for "visit nodes matching once at most once",
+    //  optionally letting a single one of them other than start and end be visited twice.
+    //  Memoised over (node, visited once-nodes, revisit used), so no path is ever materialised.
+    public long countPaths(N start, N end, Predicate<N> once, boolean allowRevisit) {
+        if (!ids.containsKey(start) || !ids.containsKey(end)) return 0;
+        return frozen().countPaths(start, end, once, allowRevisit);
+    }
+
+    public Map<N, Long> dijkstraLong(N first) {
+        return dijkstraLong(first, null);
+    }
+
+    public Map<N, Long> dijkstraLong(N first, N target) {
+        return shortestPaths(first, target).asMap();
+    }
+
+    public LongDistances<N> shortestPaths(N first) {
+        return shortestPaths(first, null);
+    }
+
+    //  Same as dijkstraLong, but distances are kept unboxed
+    public LongDistances<N> shortestPaths(N first, N target) {
+        Integer firstId = ids.get(first);
+        //  A node without edges only reaches itself, as in dijkstra
+        if (firstId == null) {
+            return new LongDistances<>(Map.of(first, 0), List.of(first), new long[]{0});
+        }
+        Integer targetId = target == null ? null : ids.get(target);
+        return new LongDistances<>(ids, nodes, frozen().shortestPaths(firstId, targetId == null ? -1 : targetId));
+    }
+
+    public <T extends Comparable<T>> Map<N, T> dijkstra(N first, Function<W, T> weight, BiFunction<T, T, T> addition, T zero) {
+        return dijkstra(first, null, weight, addition, zero);
+    }
 
-            visited.add(current);
-            toVisit.remove(current);
+    //  Stops as soon as target is settled, values of nodes not yet settled by then are only upper bounds
+    public <T extends Comparable<T>> Map<N, T> dijkstra(N first, N target, Function<W, T> weight, BiFunction<T, T, T> addition, T zero) {
+        Integer firstId = ids.get(first);
+        if (firstId == null) {
+            return new HashMap<>(Map.of(first, zero));
+        }
+        Integer targetId = target == null ? null : ids.get(target);
+        return frozen().dijkstra(firstId, targetId == null ? -1 : targetId, weight, addition, zero);
+    }
+
+    public ShortestPath<N> shortestPath(N first, N target) {
+        return aStar(first, target, node -> 0);
+    }
 
-            current = toVisit.entrySet().stream()
-                    .min(Map.Entry.comparingByValue())
-                    .map(Map.Entry::getKey)
-                    .orElse(null);
+    //  The heuristic must never overestimate and never drop by more than an edge weight along an edge
+    public ShortestPath<N> aStar(N first, N target, ToLongFunction<N> heuristic) {
+        if (!ids.containsKey(first) || !ids.containsKey(target)) {
+            return ShortestPath.unreachable(0);
+        }
+        return frozen().aStar(first, target, heuristic);
+    }
 
-        } while (current != null);
+    //  Weights must be Numbers, edges added without a weight count as 1
+    static long weightOf(Object weight) {
+        return weight == null ? 1 : ((Number) weight).longValue();
+    }
 
-        return result;
+    //  Consistent for grids where every step costs at least 1
+    public static ToLongFunction<Pos> manhattanHeuristic(Pos target) {
+        return pos -> pos.manhattanDistanceTo(target);
     }
 
     public static class UndirectedGraph<N, W> extends Graph<N, W> {
 
         @Override
         public void addEdge(N a, N b, W weight) {
-            connections.computeIfAbsent(a, k -> new ArrayList<>()).add(new Pair<>(b, weight));
-            connections.computeIfAbsent(b, k -> new ArrayList<>()).add(new Pair<>(a, weight));
+            connect(a, b, weight);
+            connect(b, a, weight);
+        }
+
+        //  Searches from both ends at once, expanding the side with the smaller frontier
+        public ShortestPath<N> bidirectional(N first, N target) {
+            Integer firstId = ids.get(first);
+            Integer targetId = ids.get(target);
+            if (firstId == null || targetId == null) {
+                return ShortestPath.unreachable(0);
+            }
+            return new Bidirectional(frozen(), firstId, targetId).run();
+        }
+
+        private class Bidirectional implements IndexedGraph.EdgeConsumer {
+            final FrozenGraph<N> graph;
+            final Frontier forward;
+            final Frontier backward;
+            Frontier search;
+            Frontier other;
+            long distance;
+            int current;
+            long best;
+            int meeting;
+
+            Bidirectional(FrozenGraph<N> graph, int first, int target) {
+                this.graph = graph;
+                this.forward = new Frontier(first);
+                this.backward = new Frontier(target);
+                this.best = first == target ? 0 : LongDistances.UNREACHABLE;
+                this.meeting = first == target ? first : -1;
+            }
+
+            ShortestPath<N> run() {
+                int settled = 0;
+                while (!forward.toVisit.isEmpty() && !backward.toVisit.isEmpty()) {
+                    //  No path through unsettled nodes can beat the best meeting found so far
+                    if (best != LongDistances.UNREACHABLE && forward.top() + backward.top() >= best) break;
+
+                    search = forward.toVisit.size() <= backward.toVisit.size() ? forward : backward;
+                    other = search == forward ? backward : forward;
+
+                    current = search.toVisit.poll();
+                    search.visited[current] = true;
+                    settled++;
+
+                    distance = search.distances[current];
+                    graph.forEachEdge(current, this);
+                }
+
+                if (meeting < 0) {
+                    return ShortestPath.unreachable(settled);
+                }
+
+                List<N> path = new ArrayList<>(ShortestPath.walkBack(forward.previous, meeting, graph::node));
+                for (int id = backward.previous[meeting]; id >= 0; id = backward.previous[id]) {
+                    path.add(graph.node(id));
+                }
+                return new ShortestPath<>(best, path, settled);
+            }
+
+            @Override
+            public void accept(int next, long weight) {
+                long value = distance + weight;
+
+                if (!search.visited[next] && value < search.distances[next]) {
+                    search.distances[next] = value;
+                    search.previous[next] = current;
+                    search.toVisit.offer(next, value);
+                }
+
+                if (other.distances[next] != LongDistances.UNREACHABLE && value + other.distances[next] < best) {
+                    best = value + other.distances[next];
+                    meeting = next;
+                }
+            }
+        }
+
+        private class Frontier {
+            final long[] distances = new long[nodes.size()];
+            final int[] previous = new int[nodes.size()];
+            final boolean[] visited = new boolean[nodes.size()];
+            final LongHeap toVisit = new LongHeap(nodes.size());
+
+            Frontier(int first) {
+                Arrays.fill(distances, LongDistances.UNREACHABLE);
+                Arrays.fill(previous, -1);
+                distances[first] = 0;
+                toVisit.offer(first, 0);
+            }
+
+            long top() {
+                return toVisit.priority(toVisit.peek());
+            }
         }
     }
 
@@ -96,7 +327,7 @@ public abstract class Graph<N, W> {
 
         @Override
         public void addEdge(N a, N b, W weight) {
-            connections.computeIfAbsent(a, k -> new ArrayList<>()).add(new Pair<>(b, weight));
+            connect(a, b, weight);
         }
     }
 }
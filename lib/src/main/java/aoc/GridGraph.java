@@ -0,0 +1,106 @@
+package aoc;
+
+import java.util.List;
+
+//  Implicit 4-connected grid, an edge costs the value of the cell it enters.
+//  The backing cells can be virtually tiled, with costRule deriving the value of every tile copy.
+public class GridGraph implements IndexedGraph {
+    private final byte[] cells;
+    private final int width;
+    private final int height;
+    private final int tiles;
+    private final CostRule costRule;
+
+    @FunctionalInterface
+    public interface CostRule {
+        CostRule IDENTITY = (value, tileI, tileJ) -> value;
+
+        long cost(int value, int tileI, int tileJ);
+
+        //  Each tile step increments the value, wrapping from max back to 1
+        static CostRule incrementPerTile(int max) {
+            return (value, tileI, tileJ) -> (value + tileI + tileJ - 1) % max + 1;
+        }
+    }
+
+    public GridGraph(byte[] cells, int width, int height) {
+        this(cells, width, height, 1, CostRule.IDENTITY);
+    }
+
+    public GridGraph(byte[] cells, int width, int height, int tiles, CostRule costRule) {
+        if (cells.length != width * height) {
+            throw new IllegalArgumentException("Expected %d cells, got %d".formatted(width * height, cells.length));
+        }
+        this.cells = cells;
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+        this.costRule = costRule;
+    }
+
+    public GridGraph(ByteGrid grid, int tiles, CostRule costRule) {
+        this(grid.cells(), grid.width(), grid.height(), tiles, costRule);
+    }
+
+    public static GridGraph ofDigits(List<String> lines, int tiles, CostRule costRule) {
+        int height = lines.size();
+        int width = lines.get(0).length();
+        byte[] cells = new byte[width * height];
+        for (int i = 0; i < height; i++) {
+            String line = lines.get(i);
+            for (int j = 0; j < width; j++) {
+                cells[i * width + j] = (byte) (line.charAt(j) - '0');
+            }
+        }
+        return new GridGraph(cells, width, height, tiles, costRule);
+    }
+
+    public int width() {
+        return width * tiles;
+    }
+
+    public int height() {
+        return height * tiles;
+    }
+
+    @Override
+    public int size() {
+        return width() * height();
+    }
+
+    public int id(int i, int j) {
+        return i * width() + j;
+    }
+
+    public int id(Pos pos) {
+        return id(pos.i(), pos.j());
+    }
+
+    public Pos pos(int id) {
+        return Pos.of(id / width(), id % width());
+    }
+
+    //  Manhattan distance is a consistent heuristic as long as every cell costs at least 1
+    public ShortestPath<Pos> aStar(Pos from, Pos to) {
+        return new IndexedDijkstra(this, node -> pos(node).manhattanDistanceTo(to))
+                .path(id(from), id(to), this::pos);
+    }
+
+    public ShortestPath<Pos> dijkstra(Pos from, Pos to) {
+        return new IndexedDijkstra(this).path(id(from), id(to), this::pos);
+    }
+
+    public long cost(int i, int j) {
+        return costRule.cost(cells[(i % height) * width + j % width], i / height, j / width);
+    }
+
+    @Override
+    public void forEachEdge(int node, EdgeConsumer consumer) {
+        int i = node / width();
+        int j = node % width();
+        if (i > 0) consumer.accept(node - width(), cost(i - 1, j));
+        if (i < height() - 1) consumer.accept(node + width(), cost(i + 1, j));
+        if (j > 0) consumer.accept(node - 1, cost(i, j - 1));
+        if (j < width() - 1) consumer.accept(node + 1, cost(i, j + 1));
+    }
+}
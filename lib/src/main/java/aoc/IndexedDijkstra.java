@@ -0,0 +1,87 @@
+package aoc;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+
+//  Dijkstra over an IndexedGraph, turns into A* when given a consistent heuristic
+class IndexedDijkstra implements IndexedGraph.EdgeConsumer {
+    final IndexedGraph graph;
+    final IntToLongFunction heuristic;
+    final long[] distances;
+    final int[] previous;
+    final boolean[] visited;
+    final LongHeap toVisit;
+    final SearchMetrics metrics;
+    int settled;
+    int current;
+
+    IndexedDijkstra(IndexedGraph graph) {
+        this(graph, null);
+    }
+
+    IndexedDijkstra(IndexedGraph graph, IntToLongFunction heuristic) {
+        this(graph, heuristic, SearchMetrics.NONE);
+    }
+
+    IndexedDijkstra(IndexedGraph graph, IntToLongFunction heuristic, SearchMetrics metrics) {
+        this.graph = graph;
+        this.heuristic = heuristic;
+        this.metrics = metrics;
+        this.distances = new long[graph.size()];
+        this.previous = new int[graph.size()];
+        this.visited = new boolean[graph.size()];
+        this.toVisit = new LongHeap(graph.size());
+        Arrays.fill(distances, LongDistances.UNREACHABLE);
+        Arrays.fill(previous, -1);
+    }
+
+    //  Returns true if target was settled
+    boolean run(int first, int target) {
+        distances[first] = 0;
+        toVisit.offer(first, estimate(first, 0));
+
+        while (!toVisit.isEmpty()) {
+            current = toVisit.poll();
+            visited[current] = true;
+            settled++;
+            metrics.queueDepth(toVisit.size());
+
+            if (current == target) {
+                metrics.solution(distances[current]);
+                return true;
+            }
+
+            metrics.expanded();
+            graph.forEachEdge(current, this);
+        }
+        return false;
+    }
+
+    <N> ShortestPath<N> path(int first, int target, IntFunction<N> node) {
+        if (!run(first, target)) return ShortestPath.unreachable(settled);
+        return new ShortestPath<>(distances[target], ShortestPath.walkBack(previous, target, node), settled);
+    }
+
+    @Override
+    public void accept(int target, long weight) {
+        if (visited[target]) {
+            metrics.pruned();
+            return;
+        }
+
+        long value = distances[current] + weight;
+        if (value < distances[target]) {
+            distances[target] = value;
+            previous[target] = current;
+            toVisit.offer(target, estimate(target, value));
+            metrics.enqueued();
+        } else {
+            metrics.pruned();
+        }
+    }
+
+    private long estimate(int node, long distance) {
+        return heuristic == null ? distance : distance + heuristic.applyAsLong(node);
+    }
+}
@@ -0,0 +1,40 @@
+package aoc;
+
+import java.util.function.IntToLongFunction;
+
+//  Graph over dense int node ids, edges may be stored or computed on demand
+public interface IndexedGraph {
+
+    int size();
+
+    void forEachEdge(int node, EdgeConsumer consumer);
+
+    @FunctionalInterface
+    interface EdgeConsumer {
+        void accept(int target, long weight);
+    }
+
+    default long[] shortestPaths(int first) {
+        return shortestPaths(first, -1);
+    }
+
+    //  Stops as soon as target is settled, pass -1 to settle the whole graph
+    default long[] shortestPaths(int first, int target) {
+        IndexedDijkstra dijkstra = new IndexedDijkstra(this);
+        dijkstra.run(first, target);
+        return dijkstra.distances;
+    }
+
+    default long shortestPath(int first, int target) {
+        return shortestPaths(first, target)[target];
+    }
+
+    //  The heuristic must never overestimate and never drop by more than an edge weight along an edge
+    default ShortestPath<Integer> aStar(int first, int target, IntToLongFunction heuristic) {
+        return aStar(first, target, heuristic, SearchMetrics.NONE);
+    }
+
+    default ShortestPath<Integer> aStar(int first, int target, IntToLongFunction heuristic, SearchMetrics metrics) {
+        return new IndexedDijkstra(this, heuristic, metrics).path(first, target, Integer::valueOf);
+    }
+}
@@ -1,33 +1,94 @@
 package aoc;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static java.time.LocalDate.parse;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
 
 public class Input {
 
     private static final String INPUT_TXT = "input.txt";
+    private static final Path RESOURCES = Path.of("src/test/resources");
+    private static final URI SERVER = URI.create("https://adventofcode.com");
+    private static final Path SESSION = Path.of("../.session");
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(20))
+            .build();
+    private static final Map<Path, CompletableFuture<Path>> FETCHES = new ConcurrentHashMap<>();
+    private static final Map<Parsed, Object> PARSED = new ConcurrentHashMap<>();
+    private static final Map<Path, Digest> DIGESTS = new ConcurrentHashMap<>();
+    private static final Executor PREFETCH = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "input-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final int SNAPSHOT_MAGIC = 0x414f4331;
 
     private final LocalDate date;
     private final String name;
+    private final Path root;
+    private final URI server;
+    private final Path session;
 
     public Input(LocalDate date) {
         this(date, INPUT_TXT);
     }
 
     public Input(LocalDate date, String name) {
+        this(date, name, RESOURCES, SERVER, SESSION);
+    }
+
+    public Input(LocalDate date, String name, Path root, URI server, Path session) {
         this.date = date;
         this.name = name;
+        this.root = root;
+        this.server = server;
+        this.session = session;
     }
 
     public static Input forDay(int day) {
@@ -35,16 +96,159 @@ public class Input {
     }
 
     public long[] asLongArray() {
+        LongArray result = new LongArray();
+        forEachLong(result);
+        return result.toArray();
+    }
+
+    private static class LongArray implements LongConsumer {
+        long[] values = new long[1024];
+        int size;
+
+        @Override
+        public void accept(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    //  One optionally signed integer per line, a trailing '\r' is allowed, anything else is a NumberFormatException
+    public void forEachLong(LongConsumer consumer) {
+        MappedByteBuffer buffer = map();
+        int limit = buffer.limit();
+        int at = 0;
+        while (at < limit) {
+            int start = at;
+            boolean negative = buffer.get(at) == '-';
+            if (negative) at++;
+            long value = 0;
+            byte ch;
+            while (at < limit && isDigit(ch = buffer.get(at))) {
+                value = value * 10 + (ch - '0');
+                at++;
+            }
+            int end = at;
+            if (at < limit && buffer.get(at) == '\r') at++;
+            if (end == start + (negative ? 1 : 0) || at < limit && buffer.get(at) != '\n') {
+                throw new NumberFormatException("Expected one integer on the line at byte " + start);
+            }
+            consumer.accept(negative ? -value : value);
+            at++;
+        }
+    }
+
+    //  Comma separated integers of the first line
+    public int[] asIntCsv() {
+        MappedByteBuffer buffer = map();
+        int[] values = new int[64];
+        int size = 0;
+        int limit = buffer.limit();
+        int at = 0;
+        while (at < limit) {
+            byte ch = buffer.get(at);
+            if (ch == '\n' || ch == '\r') break;
+            if (ch == ',' || ch == ' ') {
+                at++;
+                continue;
+            }
+            boolean negative = ch == '-';
+            if (negative) at++;
+            int value = 0;
+            while (at < limit && isDigit(ch = buffer.get(at))) {
+                value = value * 10 + (ch - '0');
+                at++;
+            }
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = negative ? -value : value;
+            if (at < limit && ch != ',' && ch != '\n' && ch != '\r' && ch != ' ') {
+                throw new NumberFormatException("Unexpected '%c' at %d".formatted((char) ch, at));
+            }
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    //  Grid of single digits, each cell holds 0..9
+    public ByteGrid asDigitGrid() {
+        ByteGrid grid = asCharGrid();
+        byte[] cells = grid.cells();
+        for (int k = 0; k < cells.length; k++) {
+            cells[k] -= '0';
+        }
+        return grid;
+    }
+
+    public IntGrid asIntGrid() {
+        return IntGrid.of(asDigitGrid());
+    }
+
+    //  Rectangular block of lines up to the first empty line, each cell holds the ASCII code
+    public ByteGrid asCharGrid() {
+        MappedByteBuffer buffer = map();
+        int limit = buffer.limit();
+        int width = 0;
+        while (width < limit && buffer.get(width) != '\n' && buffer.get(width) != '\r') width++;
+
+        byte[] cells = new byte[Math.max(width, 1) * 16];
+        int height = 0;
+        int at = 0;
+        while (at < limit && width > 0) {
+            byte ch = buffer.get(at);
+            if (ch == '\n' || ch == '\r') break;
+            if (at + width > limit) {
+                throw new IllegalStateException("Line %d is shorter than %d".formatted(height + 1, width));
+            }
+            if ((height + 1) * width > cells.length) cells = Arrays.copyOf(cells, cells.length * 2);
+            buffer.get(at, cells, height * width, width);
+            height++;
+            at += width;
+            if (at < limit && buffer.get(at) == '\r') at++;
+            if (at < limit && buffer.get(at) != '\n') {
+                throw new IllegalStateException("Line %d is longer than %d".formatted(height, width));
+            }
+            at++;
+        }
+        return new ByteGrid(width, height, Arrays.copyOf(cells, width * height));
+    }
+
+    //  Streams the file through a bounded window, so it never has to fit in memory.
+    //  Each line is only valid until the next one is read, the stream must be closed.
+    public Stream<CharSequence> lines() {
+        LineCursor cursor = cursor();
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<CharSequence>(Long.MAX_VALUE, ORDERED | NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super CharSequence> action) {
+                if (!cursor.next()) return false;
+                action.accept(cursor.line());
+                return true;
+            }
+        }, false).onClose(cursor::close);
+    }
+
+    public LineCursor cursor() {
         try {
-            return Files.readAllLines(fetchInput())
-                    .stream()
-                    .mapToLong(Long::valueOf)
-                    .toArray();
+            return new LineCursor(FileChannel.open(fetchInput(), StandardOpenOption.READ), LineCursor.WINDOW);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    //  Files over 2GB cannot be mapped as a single buffer
+    private MappedByteBuffer map() {
+        try (FileChannel channel = FileChannel.open(fetchInput(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static boolean isDigit(byte ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
     public List<String> asListOfStrings() {
         try {
             return Files.readAllLines(fetchInput());
@@ -53,48 +257,197 @@ public class Input {
         }
     }
 
+    //  Fetches every day of the calendar concurrently and parses each as soon as it arrives, element 0 is day 1
+    public static <T> List<CompletableFuture<T>> prefetchAll(Function<Input, T> parser) {
+        return forDay(1).prefetchCalendar(parser);
+    }
+
+    //  Same as prefetchAll, but from this input's server into this input's directory
+    public <T> List<CompletableFuture<T>> prefetchCalendar(Function<Input, T> parser) {
+        return IntStream.rangeClosed(1, 25)
+                .mapToObj(this::day)
+                .map(input -> input.fetchAsync().thenApplyAsync($ -> parser.apply(input), PREFETCH))
+                .toList();
+    }
+
+    public Input day(int day) {
+        return new Input(date.withDayOfMonth(day), INPUT_TXT, root, server, session);
+    }
+
+    //  Parses the input once per content: the result is kept in memory and in a binary snapshot next to the file,
+    //  both keyed by the SHA-256 of the text, so later runs skip parsing. Every caller gets the same instance,
+    //  so the long[], int[] and grid results must not be modified; copy them first.
+    //  Parsing runs outside the map, so concurrent first calls may both parse and the first one to finish wins.
+    @SuppressWarnings("unchecked")
+    public <T> T cached(Snapshot<T> snapshot) {
+        Path inputPath = fetchInput().toAbsolutePath().normalize();
+        byte[] hash = hash(inputPath);
+        Parsed key = new Parsed(inputPath, snapshot, HexFormat.of().formatHex(hash));
+        Object cached = PARSED.get(key);
+        if (cached != null) return (T) cached;
+
+        Path snapshotPath = inputPath.resolveSibling("%s.%s.bin".formatted(name, snapshot.name()));
+        T value = readSnapshot(snapshotPath, snapshot, hash);
+        if (value == null) {
+            value = snapshot.parse(this);
+            writeSnapshot(snapshotPath, snapshot, hash, value);
+        }
+        Object raced = PARSED.putIfAbsent(key, value);
+        return raced != null ? (T) raced : value;
+    }
+
+    private record Parsed(Path path, Snapshot<?> snapshot, String hash) {
+    }
+
+    private record Digest(FileTime modified, long size, byte[] hash) {
+    }
+
+    //  Rehashed only when the modification time or size changes
+    private byte[] hash(Path inputPath) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(inputPath, BasicFileAttributes.class);
+            Digest known = DIGESTS.get(inputPath);
+            if (known != null && known.modified().equals(attributes.lastModifiedTime()) && known.size() == attributes.size()) {
+                return known.hash();
+            }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(map());
+            byte[] hash = digest.digest();
+            DIGESTS.put(inputPath, new Digest(attributes.lastModifiedTime(), attributes.size(), hash));
+            return hash;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //  Returns null when there is no usable snapshot of the current content
+    private static <T> T readSnapshot(Path snapshotPath, Snapshot<T> snapshot, byte[] hash) {
+        if (!snapshotPath.toFile().exists()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) return null;
+            byte[] snapshotHash = new byte[in.readUnsignedByte()];
+            in.readFully(snapshotHash);
+            if (!Arrays.equals(hash, snapshotHash)) return null;
+            return snapshot.read(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    //  Snapshots are only an optimisation, failing to write one is not an error
+    private static <T> void writeSnapshot(Path snapshotPath, Snapshot<T> snapshot, byte[] hash, T value) {
+        try {
+            Path temp = Files.createTempFile(snapshotPath.getParent(), snapshotPath.getFileName().toString(), ".part");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeByte(hash.length);
+                    out.write(hash);
+                    snapshot.write(out, value);
+                }
+                Files.move(temp, snapshotPath, REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
     public Path fetchInput() {
+        try {
+            return fetchAsync().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    //  Concurrent fetches of the same file share a single download
+    public CompletableFuture<Path> fetchAsync() {
         Path inputPath = buildInputPath();
-        if (inputPath.toFile().exists()) return inputPath;
+        if (inputPath.toFile().exists()) return completedFuture(inputPath);
 
-        try {
-            if (!inputPath.toFile().getName().equals(INPUT_TXT)) {
-                throw new FileNotFoundException(inputPath.toString());
+        if (!inputPath.toFile().getName().equals(INPUT_TXT)) {
+            return failedFuture(new FileNotFoundException(inputPath.toString()));
+        }
+
+        Path key = inputPath.toAbsolutePath().normalize();
+        CompletableFuture<Path> fetch = new CompletableFuture<>();
+        CompletableFuture<Path> inFlight = FETCHES.putIfAbsent(key, fetch);
+        if (inFlight != null) return inFlight;
+
+        //  Another fetch may have completed between the existence check and putIfAbsent
+        CompletableFuture<Path> download = inputPath.toFile().exists()
+                ? completedFuture(inputPath)
+                : download(inputPath);
+
+        download.whenComplete((path, error) -> {
+            FETCHES.remove(key, fetch);
+            if (error != null) {
+                fetch.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            } else {
+                fetch.complete(path);
             }
+        });
+        return fetch;
+    }
 
-            String session = Files.readString(Path.of("../.session"));
-            HttpClient client = HttpClient.newBuilder()
-                    .version(HttpClient.Version.HTTP_1_1)
-                    .followRedirects(HttpClient.Redirect.NORMAL)
-                    .connectTimeout(Duration.ofSeconds(20))
-                    .build();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create("https://adventofcode.com/%d/day/%d/input"
-                            .formatted(date.getYear(), date.getDayOfMonth())))
+    private CompletableFuture<Path> download(Path inputPath) {
+        HttpRequest request;
+        try {
+            String session = Files.readString(this.session).trim();
+            request = HttpRequest.newBuilder()
+                    .uri(server.resolve("/%d/day/%d/input".formatted(date.getYear(), date.getDayOfMonth())))
                     .timeout(Duration.ofMinutes(2))
                     .header("Cookie", "session=" + session)
                     .GET()
                     .build();
+        } catch (IOException e) {
+            return failedFuture(new RuntimeException(e));
+        }
 
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        return CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
             if (200 != response.statusCode()) {
                 throw new RuntimeException("Unexpected HTTP response: %d %s"
                         .formatted(response.statusCode(), response.body()));
             }
-            //noinspection ResultOfMethodCallIgnored
-            inputPath.toFile().getParentFile().mkdir();
-            Files.writeString(inputPath, response.body());
+            return store(inputPath, response.body());
+        });
+    }
+
+    //  Written next to the target and renamed, so readers never see a partial file
+    private static Path store(Path inputPath, String body) {
+        try {
+            Files.createDirectories(inputPath.getParent());
+            Path temp = Files.createTempFile(inputPath.getParent(), inputPath.getFileName().toString(), ".part");
+            try {
+                Files.writeString(temp, body);
+                try {
+                    Files.move(temp, inputPath, ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, inputPath, REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
             return inputPath;
-        } catch (IOException | InterruptedException e) {
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     private Path buildInputPath() {
-        return Path.of("src/test/resources/%02d".formatted(date.getDayOfMonth()), name);
+        return root.resolve("%02d".formatted(date.getDayOfMonth())).resolve(name);
     }
 
     public Input file(String name) {
-        return new Input(date, name);
+        return new Input(date, name, root, server, session);
+    }
+
+    //  Fetch from another server into another directory, e.g. a local stand-in
+    public Input from(URI server, Path session, Path root) {
+        return new Input(date, name, root, server, session);
     }
 }
@@ -0,0 +1,199 @@
+package aoc;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+//  Dense row-major grid of ints, cell (i, j) is cells[i * width + j].
+//  Plain get/set are bounded, getOrDefault pads the outside with a value, the *Wrapped variants wrap around.
+public class IntGrid {
+    private final int width;
+    private final int height;
+    private final int[] cells;
+
+    public IntGrid(int width, int height) {
+        this(width, height, new int[width * height]);
+    }
+
+    public IntGrid(int width, int height, int[] cells) {
+        if (width < 0 || height < 0 || cells.length != width * height) {
+            throw new IllegalArgumentException("Expected %dx%d cells, got %d".formatted(width, height, cells.length));
+        }
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+    }
+
+    public static IntGrid of(ByteGrid grid) {
+        byte[] bytes = grid.cells();
+        int[] cells = new int[bytes.length];
+        for (int k = 0; k < bytes.length; k++) {
+            cells[k] = bytes[k];
+        }
+        return new IntGrid(grid.width(), grid.height(), cells);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public int index(int i, int j) {
+        return Objects.checkIndex(i, height) * width + Objects.checkIndex(j, width);
+    }
+
+    public int i(int index) {
+        return index / width;
+    }
+
+    public int j(int index) {
+        return index % width;
+    }
+
+    public boolean within(int i, int j) {
+        return i >= 0 && i < height && j >= 0 && j < width;
+    }
+
+    public int get(int i, int j) {
+        return cells[index(i, j)];
+    }
+
+    public int get(Pos pos) {
+        return get(pos.i(), pos.j());
+    }
+
+    public int get(int index) {
+        return cells[index];
+    }
+
+    public int getOrDefault(int i, int j, int padding) {
+        return within(i, j) ? cells[i * width + j] : padding;
+    }
+
+    public int getWrapped(int i, int j) {
+        return cells[Math.floorMod(i, height) * width + Math.floorMod(j, width)];
+    }
+
+    public void set(int i, int j, int value) {
+        cells[index(i, j)] = value;
+    }
+
+    public void set(Pos pos, int value) {
+        set(pos.i(), pos.j(), value);
+    }
+
+    public void set(int index, int value) {
+        cells[index] = value;
+    }
+
+    public void setWrapped(int i, int j, int value) {
+        cells[Math.floorMod(i, height) * width + Math.floorMod(j, width)] = value;
+    }
+
+    //  Returns the new value
+    public int increment(int index) {
+        return ++cells[index];
+    }
+
+    public void fill(int value) {
+        Arrays.fill(cells, value);
+    }
+
+    public IntGrid copy() {
+        return new IntGrid(width, height, cells.clone());
+    }
+
+    //  New grid with a border of the given value around this one, (i, j) moves to (i + border, j + border)
+    public IntGrid padded(int border, int value) {
+        IntGrid padded = new IntGrid(width + 2 * border, height + 2 * border);
+        padded.fill(value);
+        for (int i = 0; i < height; i++) {
+            System.arraycopy(cells, i * width, padded.cells, (i + border) * padded.width + border, width);
+        }
+        return padded;
+    }
+
+    //  Copy of the rectangle starting at (i, j)
+    public IntGrid subGrid(int i, int j, int width, int height) {
+        IntGrid sub = new IntGrid(width, height);
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(cells, index(i + row, j), sub.cells, row * width, width);
+        }
+        return sub;
+    }
+
+    public IntStream row(int i) {
+        Objects.checkIndex(i, height);
+        return Arrays.stream(cells, i * width, (i + 1) * width);
+    }
+
+    public IntStream column(int j) {
+        Objects.checkIndex(j, width);
+        return IntStream.range(0, height).map(i -> cells[i * width + j]);
+    }
+
+    public IntStream values() {
+        return Arrays.stream(cells);
+    }
+
+    public int count(IntPredicate predicate) {
+        int count = 0;
+        for (int cell : cells) {
+            if (predicate.test(cell)) count++;
+        }
+        return count;
+    }
+
+    //  Neighbours outside the grid are skipped, order as in Pos
+    public void forEachAdjacent(int i, int j, boolean diagonals, Pos.Visitor visitor) {
+        int[] di = diagonals ? Pos.WITH_DIAGONALS_I : Pos.WITHOUT_DIAGONALS_I;
+        int[] dj = diagonals ? Pos.WITH_DIAGONALS_J : Pos.WITHOUT_DIAGONALS_J;
+        for (int k = 0; k < di.length; k++) {
+            int ni = i + di[k];
+            int nj = j + dj[k];
+            if (within(ni, nj)) visitor.visit(ni, nj);
+        }
+    }
+
+    //  Neighbours across an edge come in from the opposite side
+    public void forEachAdjacentWrapped(int i, int j, boolean diagonals, Pos.Visitor visitor) {
+        int[] di = diagonals ? Pos.WITH_DIAGONALS_I : Pos.WITHOUT_DIAGONALS_I;
+        int[] dj = diagonals ? Pos.WITH_DIAGONALS_J : Pos.WITHOUT_DIAGONALS_J;
+        for (int k = 0; k < di.length; k++) {
+            visitor.visit(Math.floorMod(i + di[k], height), Math.floorMod(j + dj[k], width));
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntGrid grid)) return false;
+        return width == grid.width && height == grid.height && Arrays.equals(cells, grid.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * width + height) + Arrays.hashCode(cells);
+    }
+
+    //  Cells as characters, suits grids parsed from asCharGrid
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(height * (width + 1));
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                builder.append((char) cells[i * width + j]);
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package aoc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+//  Reads lines through a fixed window, only growing it for a line longer than the window.
+//  line() is a view into the window and is only valid until the next call to next().
+public class LineCursor implements Closeable {
+    static final int WINDOW = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteSequence line = new ByteSequence();
+    private ByteBuffer buffer;
+    private boolean eof;
+
+    LineCursor(ReadableByteChannel channel, int window) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(window).flip();
+    }
+
+    public boolean next() {
+        while (true) {
+            int start = buffer.position();
+            int limit = buffer.limit();
+            for (int at = start; at < limit; at++) {
+                if (buffer.get(at) == '\n') {
+                    line.set(buffer, start, (at > start && buffer.get(at - 1) == '\r' ? at - 1 : at) - start);
+                    buffer.position(at + 1);
+                    return true;
+                }
+            }
+            if (eof) {
+                if (start == limit) return false;
+                line.set(buffer, start, limit - start);
+                buffer.position(limit);
+                return true;
+            }
+            fill();
+        }
+    }
+
+    public CharSequence line() {
+        return line;
+    }
+
+    private void fill() {
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+        }
+        try {
+            eof = channel.read(buffer) < 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
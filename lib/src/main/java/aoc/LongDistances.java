@@ -0,0 +1,39 @@
+package aoc;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//  Shortest distances keyed by the dense node ids of the graph they were computed on
+public class LongDistances<N> {
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private final Map<N, Integer> ids;
+    private final List<N> nodes;
+    private final long[] distances;
+
+    LongDistances(Map<N, Integer> ids, List<N> nodes, long[] distances) {
+        this.ids = ids;
+        this.nodes = nodes;
+        this.distances = distances;
+    }
+
+    public long get(N node) {
+        Integer id = ids.get(node);
+        return id == null || id >= distances.length ? UNREACHABLE : distances[id];
+    }
+
+    public boolean reached(N node) {
+        return get(node) != UNREACHABLE;
+    }
+
+    public Map<N, Long> asMap() {
+        Map<N, Long> result = new HashMap<>();
+        for (int id = 0; id < distances.length; id++) {
+            if (distances[id] != UNREACHABLE) {
+                result.put(nodes.get(id), distances[id]);
+            }
+        }
+        return result;
+    }
+}
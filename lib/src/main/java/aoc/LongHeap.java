@@ -0,0 +1,117 @@
+package aoc;
+
+import java.util.Arrays;
+
+//  Indexed binary min-heap of int ids ordered by long priority, supports decrease-key
+public class LongHeap {
+    private int[] heap;
+    private int[] position;
+    private long[] priority;
+    private int size;
+
+    public LongHeap() {
+        this(16);
+    }
+
+    public LongHeap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        heap = new int[capacity];
+        position = new int[capacity];
+        priority = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return id < position.length && position[id] >= 0;
+    }
+
+    public long priority(int id) {
+        return priority[id];
+    }
+
+    //  Inserts id or lowers its priority, returns false if it is already queued with a priority not higher than value
+    public boolean offer(int id, long value) {
+        ensureCapacity(id);
+        if (position[id] >= 0) {
+            if (value >= priority[id]) return false;
+            priority[id] = value;
+            siftUp(position[id]);
+            return true;
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = id;
+        position[id] = size;
+        priority[id] = value;
+        siftUp(size++);
+        return true;
+    }
+
+    public int peek() {
+        if (size == 0) throw new IllegalStateException("Heap is empty");
+        return heap[0];
+    }
+
+    public int poll() {
+        int id = peek();
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        position[id] = -1;
+        return id;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < position.length) return;
+        int capacity = Math.max(position.length * 2, id + 1);
+        int from = position.length;
+        position = Arrays.copyOf(position, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        Arrays.fill(position, from, capacity, -1);
+    }
+
+    private void siftUp(int at) {
+        int id = heap[at];
+        long value = priority[id];
+        while (at > 0) {
+            int parent = (at - 1) >>> 1;
+            int parentId = heap[parent];
+            if (priority[parentId] <= value) break;
+            heap[at] = parentId;
+            position[parentId] = at;
+            at = parent;
+        }
+        heap[at] = id;
+        position[id] = at;
+    }
+
+    private void siftDown(int at) {
+        int id = heap[at];
+        long value = priority[id];
+        int half = size >>> 1;
+        while (at < half) {
+            int child = 2 * at + 1;
+            int right = child + 1;
+            if (right < size && priority[heap[right]] < priority[heap[child]]) child = right;
+            int childId = heap[child];
+            if (value <= priority[childId]) break;
+            heap[at] = childId;
+            position[childId] = at;
+            at = child;
+        }
+        heap[at] = id;
+        position[id] = at;
+    }
+}
@@ -0,0 +1,142 @@
+package aoc;
+
+import java.util.Arrays;
+
+//  Open addressing map from long to int with linear probing, same layout as LongSet
+public class LongIntMap {
+    private static final long FREE = Long.MIN_VALUE;
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private boolean containsFree;
+    private int freeValue;
+
+    public LongIntMap() {
+        this(16);
+    }
+
+    public LongIntMap(int expected) {
+        int capacity = LongSet.capacityFor(expected);
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int at = LongSet.slot(key, mask); ; at = (at + 1) & mask) {
+            long current = keys[at];
+            if (current == key) return at;
+            if (current == FREE) return -1;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return key == FREE ? containsFree : find(key) >= 0;
+    }
+
+    public int get(long key, int defaultValue) {
+        if (key == FREE) return containsFree ? freeValue : defaultValue;
+        int at = find(key);
+        return at < 0 ? defaultValue : values[at];
+    }
+
+    public void put(long key, int value) {
+        if (key == FREE) {
+            if (!containsFree) size++;
+            containsFree = true;
+            freeValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int at = LongSet.slot(key, mask);
+        for (; keys[at] != FREE; at = (at + 1) & mask) {
+            if (keys[at] == key) {
+                values[at] = value;
+                return;
+            }
+        }
+        keys[at] = key;
+        values[at] = value;
+        if (++size * 2 > keys.length) resize(keys.length * 2);
+    }
+
+    //  Adds delta to the current value, absent keys start at zero, returns the new value
+    public int add(long key, int delta) {
+        if (key == FREE) {
+            put(key, get(key, 0) + delta);
+            return freeValue;
+        }
+        int at = find(key);
+        if (at >= 0) return values[at] += delta;
+        put(key, delta);
+        return delta;
+    }
+
+    //  Returns true if the key was in the map
+    public boolean remove(long key) {
+        if (key == FREE) {
+            if (!containsFree) return false;
+            containsFree = false;
+            size--;
+            return true;
+        }
+        int gap = find(key);
+        if (gap < 0) return false;
+        int mask = keys.length - 1;
+        for (int at = (gap + 1) & mask; keys[at] != FREE; at = (at + 1) & mask) {
+            int home = LongSet.slot(keys[at], mask);
+            if (((at - home) & mask) >= ((at - gap) & mask)) {
+                keys[gap] = keys[at];
+                values[gap] = values[at];
+                gap = at;
+            }
+        }
+        keys[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        containsFree = false;
+        size = 0;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (containsFree) consumer.accept(FREE, freeValue);
+        for (int k = 0; k < keys.length; k++) {
+            if (keys[k] != FREE) consumer.accept(keys[k], values[k]);
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        int mask = capacity - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] == FREE) continue;
+            int at = LongSet.slot(oldKeys[k], mask);
+            while (keys[at] != FREE) at = (at + 1) & mask;
+            keys[at] = oldKeys[k];
+            values[at] = oldValues[k];
+        }
+    }
+}
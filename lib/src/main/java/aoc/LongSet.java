@@ -0,0 +1,135 @@
+package aoc;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+//  Open addressing set of longs with linear probing, FREE marks an empty slot and is tracked separately
+public class LongSet {
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int size;
+    private boolean containsFree;
+
+    public LongSet() {
+        this(16);
+    }
+
+    public LongSet(int expected) {
+        keys = new long[capacityFor(expected)];
+        Arrays.fill(keys, FREE);
+    }
+
+    static int capacityFor(int expected) {
+        return Integer.highestOneBit(Math.max(expected, 4) * 2 - 1) << 1;
+    }
+
+    static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long key) {
+        if (key == FREE) return containsFree;
+        int mask = keys.length - 1;
+        for (int at = slot(key, mask); ; at = (at + 1) & mask) {
+            long current = keys[at];
+            if (current == key) return true;
+            if (current == FREE) return false;
+        }
+    }
+
+    //  Returns true if the key was not in the set
+    public boolean add(long key) {
+        if (key == FREE) {
+            if (containsFree) return false;
+            containsFree = true;
+            size++;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int at = slot(key, mask);
+        for (; keys[at] != FREE; at = (at + 1) & mask) {
+            if (keys[at] == key) return false;
+        }
+        keys[at] = key;
+        if (++size * 2 > keys.length) resize(keys.length * 2);
+        return true;
+    }
+
+    //  Returns true if the key was in the set
+    public boolean remove(long key) {
+        if (key == FREE) {
+            if (!containsFree) return false;
+            containsFree = false;
+            size--;
+            return true;
+        }
+        int mask = keys.length - 1;
+        for (int at = slot(key, mask); keys[at] != FREE; at = (at + 1) & mask) {
+            if (keys[at] == key) {
+                shiftBack(at);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //  Backward shift deletion keeps every probe chain unbroken without tombstones
+    private void shiftBack(int gap) {
+        int mask = keys.length - 1;
+        for (int at = (gap + 1) & mask; keys[at] != FREE; at = (at + 1) & mask) {
+            int home = slot(keys[at], mask);
+            if (((at - home) & mask) >= ((at - gap) & mask)) {
+                keys[gap] = keys[at];
+                gap = at;
+            }
+        }
+        keys[gap] = FREE;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        containsFree = false;
+        size = 0;
+    }
+
+    public void forEach(LongConsumer consumer) {
+        if (containsFree) consumer.accept(FREE);
+        for (long key : keys) {
+            if (key != FREE) consumer.accept(key);
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int k = 0;
+        if (containsFree) result[k++] = FREE;
+        for (long key : keys) {
+            if (key != FREE) result[k++] = key;
+        }
+        return result;
+    }
+
+    private void resize(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        int mask = capacity - 1;
+        for (long key : old) {
+            if (key == FREE) continue;
+            int at = slot(key, mask);
+            while (keys[at] != FREE) at = (at + 1) & mask;
+            keys[at] = key;
+        }
+    }
+}
@@ -1,22 +1,113 @@
 package aoc;
 
-import java.util.HashMap;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 public record Pos(int i, int j) {
-    //  TODO Static pool
-    private static final Map<Integer, Map<Integer, Pos>> staticCache = new HashMap<>();
+    //  Neighbour offsets in the order the Set.of/List.of helpers below list them
+    static final int[] WITH_DIAGONALS_I = {-1, -1, 0, 1, 1, 1, 0, -1};
+    static final int[] WITH_DIAGONALS_J = {0, 1, 1, 1, 0, -1, -1, -1};
+    static final int[] WITHOUT_DIAGONALS_I = {-1, 1, 0, 0};
+    static final int[] WITHOUT_DIAGONALS_J = {0, 0, 1, -1};
+    static final int[] SURROUNDING_I = {-1, -1, -1, 0, 0, 0, 1, 1, 1};
+    static final int[] SURROUNDING_J = {-1, 0, 1, -1, 0, 1, -1, 0, 1};
 
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(int i, int j);
+    }
+
+    private static volatile Pool pool = new Pool(
+            Integer.getInteger("aoc.pos.min", 0),
+            Integer.getInteger("aoc.pos.max", 100));
+
+    //  Interned when both coordinates are within the pool range
     public static Pos of(int i, int j) {
-        if (i >= 0 && i <= 100 &&
-                j >= 0 && j <= 100) {
-            return staticCache
-                    .computeIfAbsent(i, $ -> new HashMap<>())
-                    .computeIfAbsent(j, $ -> new Pos(i, j));
+        return pool.get(i, j);
+    }
+
+    //  Replaces the pool, positions interned so far are no longer shared with new ones
+    public static void pool(int min, int max) {
+        pool = new Pool(min, max);
+    }
+
+    public static int poolMin() {
+        return pool.min;
+    }
+
+    public static int poolMax() {
+        return pool.min + pool.size - 1;
+    }
+
+    //  Flat square of lazily created positions. A hit is a plain array read: Pos only has final fields,
+    //  so a reference seen through a race is still fully constructed. A miss allocates and publishes with a CAS,
+    //  racing threads agree on whichever instance got in first.
+    private static class Pool {
+        private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(Pos[].class);
+
+        final int min;
+        final int size;
+        final Pos[] cells;
+
+        Pool(int min, int max) {
+            long span = (long) max - min + 1;
+            //  Dividing rather than squaring, span * span overflows a long for the widest ranges
+            if (max < min || span > Integer.MAX_VALUE / span) {
+                throw new IllegalArgumentException("Invalid pool range %d..%d".formatted(min, max));
+            }
+            this.min = min;
+            this.size = (int) span;
+            this.cells = new Pos[size * size];
+        }
+
+        Pos get(int i, int j) {
+            int di = i - min;
+            int dj = j - min;
+            //  Unsigned compare also rejects coordinates below min and overflowed differences
+            if (Integer.compareUnsigned(di, size) >= 0 || Integer.compareUnsigned(dj, size) >= 0) {
+                return new Pos(i, j);
+            }
+            int index = di * size + dj;
+            Pos pos = cells[index];
+            if (pos != null) return pos;
+            Pos created = new Pos(i, j);
+            Pos witness = (Pos) CELLS.compareAndExchange(cells, index, (Pos) null, created);
+            return witness == null ? created : witness;
+        }
+    }
+
+    //  Allocation-free alternatives to the collection helpers below, visiting in the same fixed order
+
+    public void forEachAdjacentWithDiagonals(Visitor visitor) {
+        forEachAdjacentWithDiagonals(i, j, visitor);
+    }
+
+    public void forEachAdjacentWithoutDiagonals(Visitor visitor) {
+        forEachAdjacentWithoutDiagonals(i, j, visitor);
+    }
+
+    public void forEachSurrounding3x3Ordered(Visitor visitor) {
+        forEachSurrounding3x3Ordered(i, j, visitor);
+    }
+
+    public static void forEachAdjacentWithDiagonals(int i, int j, Visitor visitor) {
+        forEach(i, j, WITH_DIAGONALS_I, WITH_DIAGONALS_J, visitor);
+    }
+
+    public static void forEachAdjacentWithoutDiagonals(int i, int j, Visitor visitor) {
+        forEach(i, j, WITHOUT_DIAGONALS_I, WITHOUT_DIAGONALS_J, visitor);
+    }
+
+    public static void forEachSurrounding3x3Ordered(int i, int j, Visitor visitor) {
+        forEach(i, j, SURROUNDING_I, SURROUNDING_J, visitor);
+    }
+
+    private static void forEach(int i, int j, int[] di, int[] dj, Visitor visitor) {
+        for (int k = 0; k < di.length; k++) {
+            visitor.visit(i + di[k], j + dj[k]);
         }
-        return new Pos(i, j);
     }
 
     public Set<Pos> adjacentWithDiagonals() {
@@ -0,0 +1,96 @@
+package aoc;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+//  SearchMetrics backed by striped counters, safe to share between the threads of one search
+public class SearchCounters implements SearchMetrics {
+    private final LongAdder expanded = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+    private final LongAdder enqueued = new LongAdder();
+    private volatile long queueDepth;
+    private final LongAccumulator bestCost = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    public record Sample(long expanded, long pruned, long enqueued, long queueDepth, long bestCost) {
+        public boolean solved() {
+            return bestCost != Long.MAX_VALUE;
+        }
+
+        @Override
+        public String toString() {
+            return "expanded=%d, pruned=%d, enqueued=%d, queue=%d, best=%s".formatted(
+                    expanded, pruned, enqueued, queueDepth, solved() ? bestCost : "-");
+        }
+    }
+
+    @Override
+    public void expanded() {
+        expanded.increment();
+    }
+
+    @Override
+    public void pruned() {
+        pruned.increment();
+    }
+
+    @Override
+    public void enqueued() {
+        enqueued.increment();
+    }
+
+    //  Last writer wins, good enough for a sampled gauge
+    @Override
+    public void queueDepth(long depth) {
+        queueDepth = depth;
+    }
+
+    @Override
+    public void solution(long cost) {
+        bestCost.accumulate(cost);
+    }
+
+    public long expandedCount() {
+        return expanded.sum();
+    }
+
+    //  Counters are read one by one while the search runs, so a sample is not an atomic snapshot
+    public Sample sample() {
+        return new Sample(expanded.sum(), pruned.sum(), enqueued.sum(), queueDepth, bestCost.get());
+    }
+
+    //  Hands a sample to the sink every period from a daemon thread until closed, then once more
+    public Reporter report(Duration period, Consumer<Sample> sink) {
+        return new Reporter(period, sink);
+    }
+
+    public class Reporter implements AutoCloseable {
+        private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final Consumer<Sample> sink;
+
+        private Reporter(Duration period, Consumer<Sample> sink) {
+            this.sink = sink;
+            long millis = Math.max(1, period.toMillis());
+            executor.scheduleAtFixedRate(() -> sink.accept(sample()), millis, millis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sink.accept(sample());
+        }
+    }
+}
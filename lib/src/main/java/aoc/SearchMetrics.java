@@ -0,0 +1,27 @@
+package aoc;
+
+//  Instrumentation hooks for search loops, every hook defaults to doing nothing.
+//  Implementations are called on the hot path and from several threads, so they must be cheap and thread-safe.
+public interface SearchMetrics {
+    SearchMetrics NONE = new SearchMetrics() {
+    };
+
+    //  A state was taken off the frontier and its successors generated
+    default void expanded() {
+    }
+
+    //  A state or successor was dropped without being expanded: stale, dominated or cut off by a bound
+    default void pruned() {
+    }
+
+    //  A successor was put on the frontier
+    default void enqueued() {
+    }
+
+    default void queueDepth(long depth) {
+    }
+
+    //  Cost of a complete solution, not necessarily the best one
+    default void solution(long cost) {
+    }
+}
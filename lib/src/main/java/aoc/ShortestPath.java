@@ -0,0 +1,27 @@
+package aoc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+
+//  Cost and nodes of a single-pair query, settled counts the nodes taken off the frontier to find it
+public record ShortestPath<N>(long cost, List<N> path, int settled) {
+
+    public static <N> ShortestPath<N> unreachable(int settled) {
+        return new ShortestPath<>(LongDistances.UNREACHABLE, List.of(), settled);
+    }
+
+    public boolean found() {
+        return cost != LongDistances.UNREACHABLE;
+    }
+
+    static <N> List<N> walkBack(int[] previous, int last, IntFunction<N> node) {
+        List<N> path = new ArrayList<>();
+        for (int id = last; id >= 0; id = previous[id]) {
+            path.add(node.apply(id));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
@@ -0,0 +1,108 @@
+package aoc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+//  A parser together with the binary form of its result, see Input.cached
+public interface Snapshot<T> {
+
+    //  Part of the snapshot file name, must be unique per parser of the same file
+    String name();
+
+    T parse(Input input);
+
+    void write(DataOutput out, T value) throws IOException;
+
+    T read(DataInput in) throws IOException;
+
+    @FunctionalInterface
+    interface Writer<T> {
+        void write(DataOutput out, T value) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Reader<T> {
+        T read(DataInput in) throws IOException;
+    }
+
+    static <T> Snapshot<T> of(String name, Function<Input, T> parser, Writer<T> writer, Reader<T> reader) {
+        return new Snapshot<>() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public T parse(Input input) {
+                return parser.apply(input);
+            }
+
+            @Override
+            public void write(DataOutput out, T value) throws IOException {
+                writer.write(out, value);
+            }
+
+            @Override
+            public T read(DataInput in) throws IOException {
+                return reader.read(in);
+            }
+        };
+    }
+
+    Snapshot<long[]> LONGS = of("longs", Input::asLongArray,
+            (out, values) -> {
+                out.writeInt(values.length);
+                for (long value : values) out.writeLong(value);
+            },
+            in -> {
+                long[] values = new long[in.readInt()];
+                for (int k = 0; k < values.length; k++) values[k] = in.readLong();
+                return values;
+            });
+
+    Snapshot<int[]> INT_CSV = of("csv", Input::asIntCsv,
+            (out, values) -> {
+                out.writeInt(values.length);
+                for (int value : values) out.writeInt(value);
+            },
+            in -> {
+                int[] values = new int[in.readInt()];
+                for (int k = 0; k < values.length; k++) values[k] = in.readInt();
+                return values;
+            });
+
+    Snapshot<ByteGrid> DIGIT_GRID = of("digits", Input::asDigitGrid, Snapshot::writeGrid, Snapshot::readGrid);
+
+    Snapshot<ByteGrid> CHAR_GRID = of("chars", Input::asCharGrid, Snapshot::writeGrid, Snapshot::readGrid);
+
+    //  Immutable either way, since the parsed list is shared between callers
+    Snapshot<List<String>> LINES = of("lines", input -> List.copyOf(input.asListOfStrings()),
+            (out, lines) -> {
+                out.writeInt(lines.size());
+                for (String line : lines) out.writeUTF(line);
+            },
+            in -> {
+                int size = in.readInt();
+                List<String> lines = new ArrayList<>(size);
+                for (int k = 0; k < size; k++) lines.add(in.readUTF());
+                return List.copyOf(lines);
+            });
+
+    private static void writeGrid(DataOutput out, ByteGrid grid) throws IOException {
+        out.writeInt(grid.width());
+        out.writeInt(grid.height());
+        out.write(grid.cells());
+    }
+
+    private static ByteGrid readGrid(DataInput in) throws IOException {
+        int width = in.readInt();
+        int height = in.readInt();
+        byte[] cells = new byte[width * height];
+        in.readFully(cells);
+        return new ByteGrid(width, height, cells);
+    }
+}
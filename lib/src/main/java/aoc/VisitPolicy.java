@@ -0,0 +1,24 @@
+package aoc;
+
+//  Decides whether a path may step onto node, visits is how many times node is already on the path.
+//  A plain policy must not keep state of its own, searches share one instance across every branch and thread.
+@FunctionalInterface
+public interface VisitPolicy<N> {
+
+    boolean canVisit(N node, int visits);
+
+    //  Told about every push and pop, with visits counting the node being pushed or popped.
+    //  Parallel searches give every task its own copy, so copy must return an independent instance.
+    interface Stateful<N> extends VisitPolicy<N> {
+
+        void pushed(N node, int visits);
+
+        void popped(N node, int visits);
+
+        Stateful<N> copy();
+    }
+
+    static <N> VisitPolicy<N> copyOf(VisitPolicy<N> policy) {
+        return policy instanceof Stateful<N> stateful ? stateful.copy() : policy;
+    }
+}
@@ -0,0 +1,92 @@
+package aoc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoordTest {
+
+    @Test
+    void packing() {
+        for (int i = -3; i <= 3; i++) {
+            for (int j = -3; j <= 3; j++) {
+                long coord = Coord.of(i, j);
+                assertEquals(i, Coord.i(coord));
+                assertEquals(j, Coord.j(coord));
+                assertEquals(Pos.of(i, j), Coord.toPos(coord));
+            }
+        }
+        assertEquals(7, Coord.manhattanDistance(Coord.of(-2, 3), Coord.of(1, -1)));
+        assertEquals(Integer.MIN_VALUE, Coord.i(Coord.of(Integer.MIN_VALUE, 0)));
+    }
+
+    @Test
+    void neighboursMatchPos() {
+        Pos pos = Pos.of(5, 5);
+        List<Pos> adjacent = new ArrayList<>();
+        Coord.forEachAdjacentWithDiagonals(Coord.of(pos), coord -> adjacent.add(Coord.toPos(coord)));
+        assertEquals(pos.adjacentWithDiagonals(), new HashSet<>(adjacent));
+
+        adjacent.clear();
+        Coord.forEachAdjacentWithoutDiagonals(Coord.of(pos), coord -> adjacent.add(Coord.toPos(coord)));
+        assertEquals(pos.adjacentWithoutDiagonals(), new HashSet<>(adjacent));
+
+        adjacent.clear();
+        Coord.forEachSurrounding3x3Ordered(Coord.of(pos), coord -> adjacent.add(Coord.toPos(coord)));
+        assertEquals(pos.surrounding3x3Ordered(), adjacent);
+    }
+
+    @Test
+    void longSetMatchesHashSet() {
+        Random random = new Random(18);
+        LongSet set = new LongSet(4);
+        Set<Long> expected = new HashSet<>();
+        for (int k = 0; k < 200_000; k++) {
+            //  Narrow range to force collisions, MIN_VALUE to cover the free slot marker
+            long key = random.nextInt(10) == 0 ? Long.MIN_VALUE : Coord.of(random.nextInt(64) - 32, random.nextInt(64));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (long key : set.toArray()) {
+            assertTrue(expected.contains(key));
+        }
+        for (long key : expected) {
+            assertTrue(set.contains(key));
+        }
+    }
+
+    @Test
+    void longIntMapMatchesHashMap() {
+        Random random = new Random(18);
+        LongIntMap map = new LongIntMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int k = 0; k < 200_000; k++) {
+            long key = random.nextInt(10) == 0 ? Long.MIN_VALUE : Coord.of(random.nextInt(64), random.nextInt(64) - 32);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.remove(key) != null, map.remove(key));
+                case 1 -> assertEquals(expected.merge(key, 1, Integer::sum), map.add(key, 1));
+                default -> {
+                    expected.put(key, k);
+                    map.put(key, k);
+                }
+            }
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.getOrDefault(key, -1), map.get(key, -1));
+        }
+        Map<Long, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+}
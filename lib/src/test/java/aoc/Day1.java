@@ -8,7 +8,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 class Day1 {
 
     long[] parseInput(Input input) {
-        return input.asLongArray();
+        return input.cached(Snapshot.LONGS);
     }
 
     int solution1(Input raw) {
@@ -2,12 +2,7 @@ package aoc;
 
 import org.junit.jupiter.api.Test;
 
-import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-
 import static aoc.Input.forDay;
-import static java.lang.Integer.parseInt;
-import static java.lang.String.valueOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class Day11 {
@@ -23,15 +18,19 @@ class Day11 {
     }
 
     static class Field {
-        Map<Pos, AtomicInteger> map = new HashMap<>();
-        Set<Pos> flashed = new HashSet<>();
+        final IntGrid energy;
+        int flashed;
+
+        Field(IntGrid energy) {
+            this.energy = energy;
+        }
 
         @Override
         public String toString() {
             StringBuilder builder = new StringBuilder();
-            for (int i = 0; i < 10; i++) {
-                for (int j = 0; j < 10; j++) {
-                    int value = map.get(new Pos(i, j)).get();
+            for (int i = 0; i < energy.height(); i++) {
+                for (int j = 0; j < energy.width(); j++) {
+                    int value = energy.get(i, j);
                     builder.append(value >= 10 ? "*" : value);
                 }
                 builder.append('\n');
@@ -42,50 +41,36 @@ class Day11 {
         public int step() {
             increment();
             recharge();
-            int count = flashed.size();
-            flashed.clear();
+            int count = flashed;
+            flashed = 0;
             return count;
         }
 
         private void increment() {
-            map.keySet().forEach(this::increment);
+            for (int i = 0; i < energy.height(); i++) {
+                for (int j = 0; j < energy.width(); j++) {
+                    increment(i, j);
+                }
+            }
         }
 
-        private void increment(Pos pos) {
-            if (map.get(pos).incrementAndGet() > 9) {
-                flash(pos);
+        //  Each octopus flashes once per step, when its energy first goes past 9
+        private void increment(int i, int j) {
+            if (energy.increment(energy.index(i, j)) == 10) {
+                flashed++;
+                energy.forEachAdjacent(i, j, true, this::increment);
             }
         }
 
         private void recharge() {
-            flashed.forEach(pos -> map.get(pos).set(0));
-        }
-
-        private void flash(Pos pos) {
-            if (flashed.contains(pos)) return;
-
-            flashed.add(pos);
-
-            pos.adjacentWithDiagonals().forEach(adjacent ->
-                    Optional.of(adjacent)
-                            .filter(map::containsKey)
-                            .ifPresent(this::increment));
+            for (int k = 0; k < energy.size(); k++) {
+                if (energy.get(k) > 9) energy.set(k, 0);
+            }
         }
     }
 
     Field parseInput(Input input) {
-        Field field = new Field();
-        List<String> lines = input.asListOfStrings();
-        for (int i = 0; i < lines.size(); i++) {
-            String line = lines.get(i);
-            for (int j = 0; j < line.length(); j++) {
-                field.map.put(
-                        new Pos(i, j),
-                        new AtomicInteger(parseInt(valueOf(line.charAt(j)))));
-            }
-        }
-
-        return field;
+        return new Field(input.asIntGrid());
     }
 
     int solution1(Input raw) {
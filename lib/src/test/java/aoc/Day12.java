@@ -3,13 +3,12 @@ package aoc;
 import aoc.Graph.UndirectedGraph;
 import org.junit.jupiter.api.Test;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import static aoc.Input.forDay;
-import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 class Day12 {
     @Test
@@ -39,10 +38,10 @@ class Day12 {
     long solution1(Input raw) {
         UndirectedGraph<String, Void> input = parseInput(raw);
 
-        Set<List<String>> paths = input.dfs(
+        Set<List<String>> paths = input.allPaths(
                 "start",
                 "end",
-                (path, next) -> !path.contains(next) || !isLowerCase(next));
+                (cave, visits) -> visits == 0 || !isLowerCase(cave));
 
         return paths.size();
     }
@@ -59,24 +58,7 @@ class Day12 {
     long solution2(Input raw) {
         UndirectedGraph<String, Void> input = parseInput(raw);
 
-        Set<String> smallCaves = input.connections.keySet().stream().filter(node ->
-                        !Set.of("start", "end").contains(node)
-                                && isLowerCase(node))
-                .collect(toSet());
-
-        Set<List<String>> allPaths = new HashSet<>();
-        smallCaves.stream().map(selectedSmallCave ->
-                        input.dfs("start", "end",
-                                (path, next) -> {
-                                    long timesVisited = path.stream().filter(node -> node.equals(next)).count();
-                                    boolean small = isLowerCase(next);
-                                    return timesVisited == 0
-                                            || !small
-                                            || (timesVisited == 1 && next.equals(selectedSmallCave));
-                                }))
-                .forEach(allPaths::addAll);
-
-        return allPaths.size();
+        return input.countPaths("start", "end", Day12::isLowerCase, true);
     }
 
     @Test
@@ -87,4 +69,71 @@ class Day12 {
         assertEquals(3509, solution2(input.file("test3.txt")));
         assertEquals(107395, solution2(input));
     }
+
+    //  Any small cave but start and end may be visited twice, but only one of them per path
+    static class SingleRevisit implements VisitPolicy.Stateful<String> {
+        boolean revisited;
+
+        @Override
+        public boolean canVisit(String cave, int visits) {
+            return visits == 0
+                    || !isLowerCase(cave)
+                    || (visits == 1 && !revisited && !cave.equals("start") && !cave.equals("end"));
+        }
+
+        @Override
+        public void pushed(String cave, int visits) {
+            if (visits == 2 && isLowerCase(cave)) revisited = true;
+        }
+
+        @Override
+        public void popped(String cave, int visits) {
+            if (visits == 2 && isLowerCase(cave)) revisited = false;
+        }
+
+        @Override
+        public SingleRevisit copy() {
+            SingleRevisit copy = new SingleRevisit();
+            copy.revisited = revisited;
+            return copy;
+        }
+    }
+
+    @Test
+    void visitPolicy() {
+        Input input = getInput();
+        assertEquals(36, parseInput(input.file("test1.txt")).allPaths("start", "end", new SingleRevisit()).size());
+        assertEquals(3509, parseInput(input.file("test3.txt")).countPaths("start", "end", new SingleRevisit()));
+        assertEquals(107395, parseInput(input).countPaths("start", "end", new SingleRevisit()));
+    }
+
+    @Test
+    void parallelCount() {
+        UndirectedGraph<String, Void> graph = parseInput(getInput());
+        for (int splitDepth = 0; splitDepth <= 4; splitDepth++) {
+            SingleRevisit policy = new SingleRevisit();
+            assertEquals(107395, graph.countPathsParallel("start", "end", policy, splitDepth));
+            assertFalse(policy.revisited);
+        }
+    }
+
+    @Test
+    void streamPaths() {
+        Input input = getInput();
+        UndirectedGraph<String, Void> graph = parseInput(input.file("test3.txt"));
+
+        assertEquals(226, graph.paths("start", "end", (path, next) -> !path.contains(next) || !isLowerCase(next)).count());
+
+        List<List<String>> first = graph.paths("start", "end", (path, next) -> !path.contains(next) || !isLowerCase(next))
+                .limit(3)
+                .toList();
+        assertEquals(3, first.size());
+        first.forEach(path -> {
+            assertEquals("start", path.get(0));
+            assertEquals("end", path.get(path.size() - 1));
+        });
+
+        assertEquals(3679, parseInput(input).paths("start", "end", (path, next) -> !path.contains(next) || !isLowerCase(next))
+                .count());
+    }
 }
@@ -2,12 +2,9 @@ package aoc;
 
 import org.junit.jupiter.api.Test;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import static aoc.Input.forDay;
 import static java.lang.Character.isDigit;
@@ -29,17 +26,30 @@ class Day13 {
     }
 
     class Field {
-        Set<Pos> marks = new HashSet<>();
+        IntGrid marks = new IntGrid(0, 0);
+
+        int count() {
+            return marks.count(mark -> mark != 0);
+        }
 
         public String toString() {
             StringBuilder builder = new StringBuilder();
-            int minI = marks.stream().mapToInt(Pos::i).min().orElseThrow();
-            int maxI = marks.stream().mapToInt(Pos::i).max().orElseThrow();
-            int minJ = marks.stream().mapToInt(Pos::j).min().orElseThrow();
-            int maxJ = marks.stream().mapToInt(Pos::j).max().orElseThrow();
+            int minI = Integer.MAX_VALUE;
+            int maxI = Integer.MIN_VALUE;
+            int minJ = Integer.MAX_VALUE;
+            int maxJ = Integer.MIN_VALUE;
+            for (int i = 0; i < marks.height(); i++) {
+                for (int j = 0; j < marks.width(); j++) {
+                    if (marks.get(i, j) == 0) continue;
+                    minI = Math.min(minI, i);
+                    maxI = Math.max(maxI, i);
+                    minJ = Math.min(minJ, j);
+                    maxJ = Math.max(maxJ, j);
+                }
+            }
             for (int i = minI; i <= maxI; i++) {
                 for (int j = minJ; j <= maxJ; j++) {
-                    builder.append(marks.contains(new Pos(i, j)) ? "#" : " ");
+                    builder.append(marks.get(i, j) != 0 ? "#" : " ");
                 }
                 builder.append('\n');
             }
@@ -58,40 +68,40 @@ class Day13 {
             }
         }
 
+        //  Folds keep the top and left parts, mirrored marks must land inside them
         private void foldI(int i) {
-            Set<Pos> toFlip = marks.stream()
-                    .filter(pos -> pos.i() > i)
-                    .collect(Collectors.toSet());
-
-            Set<Pos> flipped = toFlip.stream()
-                    .map(pos -> new Pos(i - (pos.i() - i), pos.j()))
-                    .collect(Collectors.toSet());
-
-            marks.removeAll(toFlip);
-            marks.addAll(flipped);
+            IntGrid folded = new IntGrid(marks.width(), i);
+            for (int mi = 0; mi < marks.height(); mi++) {
+                for (int j = 0; j < marks.width(); j++) {
+                    if (marks.get(mi, j) != 0) folded.set(mi > i ? i - (mi - i) : mi, j, 1);
+                }
+            }
+            marks = folded;
         }
 
         private void foldJ(int j) {
-            Set<Pos> toFlip = marks.stream()
-                    .filter(pos -> pos.j() > j)
-                    .collect(Collectors.toSet());
-
-            Set<Pos> flipped = toFlip.stream()
-                    .map(pos -> new Pos(pos.i(), j - (pos.j() - j)))
-                    .collect(Collectors.toSet());
-
-            marks.removeAll(toFlip);
-            marks.addAll(flipped);
+            IntGrid folded = new IntGrid(j, marks.height());
+            for (int i = 0; i < marks.height(); i++) {
+                for (int mj = 0; mj < marks.width(); mj++) {
+                    if (marks.get(i, mj) != 0) folded.set(i, mj > j ? j - (mj - j) : mj, 1);
+                }
+            }
+            marks = folded;
         }
 
         public void readMarks(List<String> input) {
-            input.stream()
+            List<Pos> positions = input.stream()
                     .filter(not(String::isEmpty))
                     .filter(line -> isDigit(line.charAt(0)))
-                    .forEach(line -> {
+                    .map(line -> {
                         String[] parts = line.split(",");
-                        marks.add(new Pos(parseInt(parts[1]), parseInt(parts[0])));
-                    });
+                        return Pos.of(parseInt(parts[1]), parseInt(parts[0]));
+                    })
+                    .toList();
+            int height = positions.stream().mapToInt(Pos::i).max().orElse(-1) + 1;
+            int width = positions.stream().mapToInt(Pos::j).max().orElse(-1) + 1;
+            marks = new IntGrid(width, height);
+            positions.forEach(pos -> marks.set(pos, 1));
         }
     }
 
@@ -105,9 +115,12 @@ class Day13 {
         Field field = new Field();
         field.readMarks(input);
 
-        field.fold(input.get(field.marks.size() + 1));
+        field.fold(input.stream()
+                .filter(line -> line.startsWith("fold"))
+                .findFirst()
+                .orElseThrow());
 
-        return field.marks.size();
+        return field.count();
     }
 
     @Test
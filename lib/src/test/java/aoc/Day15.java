@@ -4,8 +4,10 @@ import aoc.Graph.DirectedGraph;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
-import java.util.Map;
 
+import static aoc.Graph.manhattanHeuristic;
+import static aoc.GridGraph.CostRule.IDENTITY;
+import static aoc.GridGraph.CostRule.incrementPerTile;
 import static aoc.Input.forDay;
 import static java.lang.Long.parseLong;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -32,11 +34,11 @@ class Day15 {
 
         DirectedGraph<Pos, Long> graph = new DirectedGraph<>();
 
-        int n = tile(input, graph, 1);
+        int n = addEdges(input, graph);
 
-        Map<Pos, Long> dijkstra = graph.dijkstraLong(new Pos(0, 0));
+        Pos target = new Pos(n - 1, n - 1);
 
-        return dijkstra.get(new Pos(n - 1, n - 1));
+        return graph.shortestPaths(new Pos(0, 0), target).get(target);
     }
 
     @Test
@@ -48,35 +50,24 @@ class Day15 {
     }
 
     Long solution2(Input raw) {
-        List<String> input = parseInput(raw);
-
-        DirectedGraph<Pos, Long> graph = new DirectedGraph<>();
-
-        int n = tile(input, graph, 5);
+        GridGraph grid = new GridGraph(raw.cached(Snapshot.DIGIT_GRID), 5, incrementPerTile(9));
 
-        Map<Pos, Long> dijkstra = graph.dijkstraLong(new Pos(0, 0));
-
-        return dijkstra.get(new Pos(n * 5 - 1, n * 5 - 1));
+        return grid.shortestPath(grid.id(0, 0), grid.id(grid.height() - 1, grid.width() - 1));
     }
 
-    private int tile(List<String> input, DirectedGraph<Pos, Long> graph, int times) {
+    //  Entering a cell costs its digit
+    private int addEdges(List<String> input, DirectedGraph<Pos, Long> graph) {
         int n = input.size();
         for (int i = 0; i < n; i++) {
             String line = input.get(i);
             for (int j = 0; j < n; j++) {
+                Pos current = new Pos(i, j);
                 long weight = parseLong(line.substring(j, j + 1));
-                for (int ik = 0; ik < times; ik++) {
-                    for (int jk = 0; jk < times; jk++) {
-                        Pos current = new Pos(i + n * ik, j + n * jk);
-                        long kWeightIncremented = weight + ik + jk;
-                        long kWeight = (kWeightIncremented % 10) + kWeightIncremented / 10;
-                        current.adjacentWithoutDiagonals().forEach(adjacent -> {
-                            if (adjacent.i() >= 0 && adjacent.j() >= 0) {
-                                graph.addEdge(adjacent, current, kWeight);
-                            }
-                        });
+                current.adjacentWithoutDiagonals().forEach(adjacent -> {
+                    if (adjacent.i() >= 0 && adjacent.j() >= 0) {
+                        graph.addEdge(adjacent, current, weight);
                     }
-                }
+                });
             }
         }
         return n;
@@ -88,4 +79,33 @@ class Day15 {
         assertEquals(315, solution2(input.file("test1.txt")));
         assertEquals(3040, solution2(input));
     }
+
+    @Test
+    void aStarMatchesDijkstra() {
+        Input input = getInput();
+        List<String> lines = parseInput(input);
+
+        DirectedGraph<Pos, Long> graph = new DirectedGraph<>();
+        int n = addEdges(lines, graph);
+        Pos target = new Pos(n - 1, n - 1);
+
+        ShortestPath<Pos> graphDijkstra = graph.shortestPath(new Pos(0, 0), target);
+        ShortestPath<Pos> graphAStar = graph.aStar(new Pos(0, 0), target, manhattanHeuristic(target));
+        assertEquals(739, graphDijkstra.cost());
+        assertEquals(graphDijkstra.cost(), graphAStar.cost());
+        assertEquals(graphAStar.cost(), pathCost(graphAStar, GridGraph.ofDigits(lines, 1, IDENTITY)));
+
+        GridGraph grid = GridGraph.ofDigits(lines, 5, incrementPerTile(9));
+        Pos corner = new Pos(grid.height() - 1, grid.width() - 1);
+
+        ShortestPath<Pos> dijkstra = grid.dijkstra(new Pos(0, 0), corner);
+        ShortestPath<Pos> aStar = grid.aStar(new Pos(0, 0), corner);
+        assertEquals(3040, dijkstra.cost());
+        assertEquals(dijkstra.cost(), aStar.cost());
+        assertEquals(aStar.cost(), pathCost(aStar, grid));
+    }
+
+    private static long pathCost(ShortestPath<Pos> path, GridGraph grid) {
+        return path.path().stream().skip(1).mapToLong(pos -> grid.cost(pos.i(), pos.j())).sum();
+    }
 }
@@ -2,29 +2,29 @@ package aoc;
 
 import org.junit.jupiter.api.Test;
 
-import java.util.List;
-
 import static aoc.Input.forDay;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class Day2 {
-    List<String> parseInput(Input input) {
-        return input.asListOfStrings();
+    static long amount(CharSequence command) {
+        int space = 0;
+        while (command.charAt(space) != ' ') space++;
+        return Long.parseLong(command, space + 1, command.length(), 10);
     }
 
     long solution1(Input raw) {
-        List<String> input = parseInput(raw);
-
         int h = 0;
         int depth = 0;
 
-        for (String command : input) {
-            String[] parts = command.split(" ");
-            final long x = Long.parseLong(parts[1]);
-            switch (parts[0]) {
-                case "forward" -> h += x;
-                case "up" -> depth -= x;
-                case "down" -> depth += x;
+        try (LineCursor commands = raw.cursor()) {
+            while (commands.next()) {
+                CharSequence command = commands.line();
+                final long x = amount(command);
+                switch (command.charAt(0)) {
+                    case 'f' -> h += x;
+                    case 'u' -> depth -= x;
+                    case 'd' -> depth += x;
+                }
             }
         }
 
@@ -39,22 +39,22 @@ class Day2 {
     }
 
     long solution2(Input raw) {
-        List<String> input = parseInput(raw);
-
         int h = 0;
         int depth = 0;
         int aim = 0;
 
-        for (String command : input) {
-            String[] parts = command.split(" ");
-            final long x = Long.parseLong(parts[1]);
-            switch (parts[0]) {
-                case "forward" -> {
-                    h += x;
-                    depth += aim * x;
+        try (LineCursor commands = raw.cursor()) {
+            while (commands.next()) {
+                CharSequence command = commands.line();
+                final long x = amount(command);
+                switch (command.charAt(0)) {
+                    case 'f' -> {
+                        h += x;
+                        depth += aim * x;
+                    }
+                    case 'u' -> aim -= x;
+                    case 'd' -> aim += x;
                 }
-                case "up" -> aim -= x;
-                case "down" -> aim += x;
             }
         }
 
@@ -2,14 +2,9 @@ package aoc;
 
 import org.junit.jupiter.api.Test;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import static aoc.Input.forDay;
-import static java.lang.Integer.parseInt;
-import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
@@ -27,12 +22,10 @@ class Day20 {
 
     static class Field {
         final String algorithm;
-        Set<Pos> marks = new HashSet<>();
+        IntGrid image = new IntGrid(0, 0);
 
-        int minI;
-        int maxI;
-        int minJ;
-        int maxJ;
+        //  Every pixel outside the image, it flips each step when the algorithm lights up an all-dark neighbourhood
+        int background;
 
         Field(String algorithm) {
             this.algorithm = algorithm;
@@ -40,9 +33,9 @@ class Day20 {
 
         public String toString() {
             StringBuilder builder = new StringBuilder();
-            for (int i = minI; i <= maxI; i++) {
-                for (int j = minJ; j <= maxJ; j++) {
-                    builder.append(marks.contains(new Pos(i, j)) ? "#" : " ");
+            for (int i = 0; i < image.height(); i++) {
+                for (int j = 0; j < image.width(); j++) {
+                    builder.append(image.get(i, j) != 0 ? "#" : " ");
                 }
                 builder.append('\n');
             }
@@ -50,60 +43,43 @@ class Day20 {
         }
 
         public Field readMarks(List<String> input) {
+            image = new IntGrid(input.get(0).length(), input.size());
             for (int i = 0; i < input.size(); i++) {
                 String line = input.get(i);
                 for (int j = 0; j < line.length(); j++) {
-                    char ch = line.charAt(j);
-                    if (ch == '#') {
-                        marks.add(new Pos(i, j));
-                        if (minI > i) minI = i;
-                        if (maxI < i) maxI = i;
-                        if (minJ > j) minJ = j;
-                        if (maxJ > j) maxJ = j;
-                    }
+                    if (line.charAt(j) == '#') image.set(i, j, 1);
                 }
             }
             return this;
         }
 
-        public void iterate(int n, int kernelCutOff, int kernelExpand) {
-            for (int k = 1; k <= n; k++) {
-//                System.out.println(k + " iteration, " + marks.size() + " marks");
-
-                Set<Pos> newMarks = new HashSet<>();
-
-                minI = marks.stream().mapToInt(Pos::i).min().orElseThrow() - kernelExpand;
-                maxI = marks.stream().mapToInt(Pos::i).max().orElseThrow() + kernelExpand;
-                minJ = marks.stream().mapToInt(Pos::j).min().orElseThrow() - kernelExpand;
-                maxJ = marks.stream().mapToInt(Pos::j).max().orElseThrow() + kernelExpand;
-
-                for (int i = minI; i <= maxI; i++) {
-                    for (int j = minJ; j <= maxJ; j++) {
-                        Pos pos = new Pos(i, j);
-
-                        String bits = pos.surrounding3x3Ordered()
-                                .stream()
-                                .map(mark -> marks.contains(mark))
-                                .map(present -> present ? "1" : "0")
-                                .collect(joining());
+        public int lit() {
+            return image.count(pixel -> pixel != 0);
+        }
 
-                        int index = parseInt(bits, 2);
+        //  The image grows by one pixel on each side per step, anything further out only sees background
+        public void iterate(int n) {
+            for (int k = 1; k <= n; k++) {
+                IntGrid next = new IntGrid(image.width() + 2, image.height() + 2);
+
+                for (int i = 0; i < next.height(); i++) {
+                    for (int j = 0; j < next.width(); j++) {
+                        //  Same bit order as Pos.surrounding3x3Ordered, most significant first
+                        int index = 0;
+                        for (int di = -2; di <= 0; di++) {
+                            for (int dj = -2; dj <= 0; dj++) {
+                                index = index << 1 | image.getOrDefault(i + di, j + dj, background);
+                            }
+                        }
 
                         if (algorithm.charAt(index) == '#') {
-                            newMarks.add(pos);
+                            next.set(i, j, 1);
                         }
                     }
                 }
 
-                int iterationCutOff = k % 2 == 0 ? kernelCutOff : 0;
-
-                this.marks = newMarks.stream()
-                        .filter(pos -> pos.within(
-                                minI + iterationCutOff,
-                                maxI - iterationCutOff,
-                                minJ + iterationCutOff,
-                                maxJ - iterationCutOff))
-                        .collect(toSet());
+                background = algorithm.charAt(background == 0 ? 0 : 511) == '#' ? 1 : 0;
+                image = next;
             }
         }
     }
@@ -113,14 +89,14 @@ class Day20 {
         return new Field(lines.get(0)).readMarks(lines.subList(2, lines.size()));
     }
 
-    int solve(Input raw, int n, int kernelExpand, int kernelCutOff) {
+    int solve(Input raw, int n) {
         Field input = parseInput(raw);
 
-        input.iterate(n, kernelCutOff, kernelExpand);
+        input.iterate(n);
 
 //        System.out.println(input);
 
-        return input.marks.size();
+        return input.lit();
     }
 
     @Test
@@ -128,17 +104,10 @@ class Day20 {
         Input input = getInput();
         Input test1 = input.file("test1.txt");
 
-        //  Magic numbers defining image kernel for both inputs
-        int testExpand = 1;
-        int testCutOff = 0;
-
-        int realExpand = 3;
-        int realCutOff = 4;
-
-        int actualPart1Test1 = solve(test1, 2, testExpand, testCutOff);
+        int actualPart1Test1 = solve(test1, 2);
         assertEquals(35, actualPart1Test1);
 
-        int actualPart1 = solve(input, 2, realExpand, realCutOff);
+        int actualPart1 = solve(input, 2);
         assertNotEquals(6754, actualPart1, "Too high");
         assertNotEquals(6109, actualPart1, "Too high");
         assertNotEquals(5431, actualPart1, "Too high");
@@ -146,10 +115,10 @@ class Day20 {
 
         //  Part 2
 
-        int actualPart2Test1 = solve(test1, 50, testExpand, testCutOff);
+        int actualPart2Test1 = solve(test1, 50);
         assertEquals(3351, actualPart2Test1);
 
-        int actualPart2 = solve(input, 50, realExpand, realCutOff);
+        int actualPart2 = solve(input, 50);
         assertEquals(17172, actualPart2);
     }
 }
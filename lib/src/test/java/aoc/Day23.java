@@ -1,9 +1,13 @@
 package aoc;
 
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import static aoc.Day23.Burrow.*;
 import static aoc.Day23.Species.*;
@@ -12,6 +16,7 @@ import static java.util.Comparator.comparing;
 import static java.util.Optional.empty;
 import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class Day23 {
 
@@ -206,6 +211,462 @@ class Day23 {
         }
     }
 
+    //  Burrow packed into a long, one base-5 digit per cell: 0 is empty, 1..4 are A..D.
+    //  Cells 0..6 are the hallway stops left to right, slot s of room r (counting from the top) is 7 + r * depth + s.
+    static class Packed {
+        static final int STOPS = 7;
+        static final int[] STOP_COLUMNS = {1, 2, 4, 6, 8, 10, 11};
+        static final int[] ROOM_COLUMNS = {3, 5, 7, 9};
+        static final int[] ENERGY = {0, A.cost, B.cost, C.cost, D.cost};
+
+        final int depth;
+        final int cells;
+        final long[] weights;
+        final long goal;
+
+        //  Walks between a room slot and a hallway stop, indexed by (cell - STOPS) * STOPS + stop, and between
+        //  two room slots, indexed by (from - STOPS) * 4 * depth + (to - STOPS). A mask has a bit per cell on the
+        //  way, both ends included, so a walk is clear when the occupied cells on it are just the walker.
+        final int[] exitSteps;
+        final int[] exitMasks;
+        final int[] crossSteps;
+        final int[] crossMasks;
+
+        Packed(int depth) {
+            this.depth = depth;
+            this.cells = STOPS + 4 * depth;
+            this.weights = new long[cells];
+            long weight = 1;
+            for (int k = 0; k < cells; k++) {
+                weights[k] = weight;
+                weight *= 5;
+            }
+            int slots = 4 * depth;
+            this.exitSteps = new int[slots * STOPS];
+            this.exitMasks = new int[slots * STOPS];
+            this.crossSteps = new int[slots * slots];
+            this.crossMasks = new int[slots * slots];
+            for (int from = 0; from < slots; from++) {
+                int r = from / depth;
+                for (int stop = 0; stop < STOPS; stop++) {
+                    exitSteps[from * STOPS + stop] = from % depth + 1 + Math.abs(ROOM_COLUMNS[r] - STOP_COLUMNS[stop]);
+                    exitMasks[from * STOPS + stop] = shaft(from) | hallway(ROOM_COLUMNS[r], STOP_COLUMNS[stop]);
+                }
+                for (int to = 0; to < slots; to++) {
+                    int home = to / depth;
+                    crossSteps[from * slots + to] = from % depth + 1
+                            + Math.abs(ROOM_COLUMNS[r] - ROOM_COLUMNS[home]) + to % depth + 1;
+                    crossMasks[from * slots + to] = shaft(from) | shaft(to) | hallway(ROOM_COLUMNS[r], ROOM_COLUMNS[home]);
+                }
+            }
+            byte[] settled = new byte[cells];
+            for (int r = 0; r < 4; r++) {
+                for (int slot = 0; slot < depth; slot++) {
+                    settled[room(r, slot)] = (byte) (r + 1);
+                }
+            }
+            this.goal = encode(settled);
+        }
+
+        int room(int r, int slot) {
+            return STOPS + r * depth + slot;
+        }
+
+        //  Room cells from the top down to the given slot
+        private int shaft(int slot) {
+            int mask = 0;
+            for (int above = slot - slot % depth; above <= slot; above++) {
+                mask |= 1 << (STOPS + above);
+            }
+            return mask;
+        }
+
+        //  Hallway stops between the two columns, both included
+        private static int hallway(int fromColumn, int toColumn) {
+            int mask = 0;
+            for (int stop = 0; stop < STOPS; stop++) {
+                if (STOP_COLUMNS[stop] >= Math.min(fromColumn, toColumn) && STOP_COLUMNS[stop] <= Math.max(fromColumn, toColumn)) {
+                    mask |= 1 << stop;
+                }
+            }
+            return mask;
+        }
+
+        long encode(byte[] cells) {
+            long state = 0;
+            for (int k = this.cells - 1; k >= 0; k--) {
+                state = state * 5 + cells[k];
+            }
+            return state;
+        }
+
+        //  Returns the occupancy bitmap, a bit per non-empty cell
+        int decode(long state, byte[] cells) {
+            int occupied = 0;
+            for (int k = 0; k < this.cells; k++) {
+                cells[k] = (byte) (state % 5);
+                if (cells[k] != 0) occupied |= 1 << k;
+                state /= 5;
+            }
+            return occupied;
+        }
+
+        long encode(Burrow burrow) {
+            byte[] cells = new byte[this.cells];
+            burrow.map.forEach((pos, species) -> {
+                if (species.cost == 0) return;
+                int cell = pos.i() == 1
+                        ? Arrays.binarySearch(STOP_COLUMNS, pos.j())
+                        : room((pos.j() - 3) / 2, pos.i() - 2);
+                cells[cell] = (byte) (species.ordinal() + 1);
+            });
+            return encode(cells);
+        }
+
+        //  One amphipod moved between two cells, the rest of the state stays as is
+        long move(long state, int from, int to, int species) {
+            return state + species * (weights[to] - weights[from]);
+        }
+
+        @FunctionalInterface
+        interface MoveConsumer {
+            void accept(long next, int cost);
+        }
+
+        //  Same rules as Burrow.possibleTargets: the top amphipod of a room that still holds strangers
+        //  steps out to a hallway stop, an amphipod in the hallway only goes to the bottom of its own room.
+        //  With straightHome a move into a home room is taken alone as soon as there is one, walking room to room
+        //  directly when the hallway between is clear. Entering home never hurts, so no cheaper solution is lost.
+        void forEachMove(long state, byte[] cells, boolean straightHome, MoveConsumer consumer) {
+            int occupied = decode(state, cells);
+            int slots = 4 * depth;
+            for (int stop = 0; stop < STOPS; stop++) {
+                int species = cells[stop];
+                if (species == 0) continue;
+                int slot = freeSlot(cells, species - 1);
+                if (slot < 0) continue;
+                int to = room(species - 1, slot);
+                int walk = (to - STOPS) * STOPS + stop;
+                if ((occupied & exitMasks[walk]) != 1 << stop) continue;
+                consumer.accept(move(state, stop, to, species), exitSteps[walk] * ENERGY[species]);
+                if (straightHome) return;
+            }
+            for (int r = 0; r < 4 && straightHome; r++) {
+                int top = top(cells, r);
+                if (top == depth || settled(cells, r, top)) continue;
+                int from = room(r, top);
+                int species = cells[from];
+                int slot = species - 1 != r ? freeSlot(cells, species - 1) : -1;
+                if (slot < 0) continue;
+                int to = room(species - 1, slot);
+                int walk = (from - STOPS) * slots + (to - STOPS);
+                if ((occupied & crossMasks[walk]) != 1 << from) continue;
+                consumer.accept(move(state, from, to, species), crossSteps[walk] * ENERGY[species]);
+                return;
+            }
+            for (int r = 0; r < 4; r++) {
+                int top = top(cells, r);
+                if (top == depth || settled(cells, r, top)) continue;
+                int from = room(r, top);
+                int species = cells[from];
+                for (int stop = 0; stop < STOPS; stop++) {
+                    int walk = (from - STOPS) * STOPS + stop;
+                    if ((occupied & exitMasks[walk]) != 1 << from) continue;
+                    consumer.accept(move(state, from, stop, species), exitSteps[walk] * ENERGY[species]);
+                }
+            }
+        }
+
+        //  Lower bound on the remaining cost, which never drops by more than a move costs. Everyone not settled
+        //  walks to the top of their room ignoring blockers, amphipods walled in at home step out and back,
+        //  and m newcomers to a room go 1 + 2 + .. + m slots down.
+        //  cells and entering are scratch space, entering counts newcomers per species
+        long heuristic(long state, byte[] cells, int[] entering) {
+            decode(state, cells);
+            long total = 0;
+            Arrays.fill(entering, 0);
+            for (int stop = 0; stop < STOPS; stop++) {
+                int species = cells[stop];
+                if (species == 0) continue;
+                total += (long) Math.abs(STOP_COLUMNS[stop] - ROOM_COLUMNS[species - 1]) * ENERGY[species];
+                entering[species]++;
+            }
+            for (int r = 0; r < 4; r++) {
+                int bottom = depth;
+                while (bottom > 0 && cells[room(r, bottom - 1)] == r + 1) bottom--;
+                for (int slot = 0; slot < bottom; slot++) {
+                    int species = cells[room(r, slot)];
+                    if (species == 0) continue;
+                    int across = species == r + 1 ? 2 : Math.abs(ROOM_COLUMNS[r] - ROOM_COLUMNS[species - 1]);
+                    total += (long) (slot + 1 + across) * ENERGY[species];
+                    entering[species]++;
+                }
+            }
+            for (int species = 1; species <= 4; species++) {
+                total += (long) entering[species] * (entering[species] + 1) / 2 * ENERGY[species];
+            }
+            return total;
+        }
+
+        int top(byte[] cells, int r) {
+            int top = 0;
+            while (top < depth && cells[room(r, top)] == 0) top++;
+            return top;
+        }
+
+        //  Everyone from the slot down already lives in room r
+        boolean settled(byte[] cells, int r, int from) {
+            for (int slot = from; slot < depth; slot++) {
+                if (cells[room(r, slot)] != r + 1) return false;
+            }
+            return true;
+        }
+
+        //  Deepest empty slot of room r if everyone below it already lives there, -1 otherwise
+        int freeSlot(byte[] cells, int r) {
+            for (int slot = depth - 1; slot >= 0; slot--) {
+                int species = cells[room(r, slot)];
+                if (species == 0) return slot;
+                if (species != r + 1) return -1;
+            }
+            return -1;
+        }
+
+        long minCost(Burrow burrow) {
+            return new Search(this, true).run(encode(burrow));
+        }
+    }
+
+    //  Best-first search over encoded states: ids index the heap, best holds the cheapest cost seen per id.
+    //  Plain Dijkstra, or A* with Packed.heuristic and the straight home rule when informed.
+    static class Search implements Packed.MoveConsumer {
+        final Packed packed;
+        final boolean informed;
+        final LongIntMap ids = new LongIntMap(1 << 16);
+        final LongHeap heap = new LongHeap(1 << 16);
+        final byte[] scratch;
+        final int[] entering = new int[5];
+        long[] states = new long[1 << 16];
+        long[] best = new long[1 << 16];
+        final SearchMetrics metrics;
+        long cost;
+
+        Search(Packed packed, boolean informed) {
+            this(packed, informed, SearchMetrics.NONE);
+        }
+
+        Search(Packed packed, boolean informed, SearchMetrics metrics) {
+            this.packed = packed;
+            this.informed = informed;
+            this.metrics = metrics;
+            this.scratch = new byte[packed.cells];
+        }
+
+        long run(long initial) {
+            byte[] cells = new byte[packed.cells];
+            ids.put(initial, 0);
+            states[0] = initial;
+            heap.offer(0, 0);
+
+            while (!heap.isEmpty()) {
+                int id = heap.poll();
+                long state = states[id];
+                cost = best[id];
+                metrics.queueDepth(heap.size());
+                if (state == packed.goal) {
+                    metrics.solution(cost);
+                    return cost;
+                }
+                metrics.expanded();
+                packed.forEachMove(state, cells, informed, this);
+            }
+            throw new IllegalStateException("Amphipods never settle");
+        }
+
+        @Override
+        public void accept(long next, int moveCost) {
+            long nextCost = cost + moveCost;
+            int id = ids.get(next, -1);
+            if (id < 0) {
+                id = ids.size();
+                ids.put(next, id);
+                if (id == states.length) {
+                    states = Arrays.copyOf(states, id * 2);
+                    best = Arrays.copyOf(best, id * 2);
+                }
+                states[id] = next;
+            } else if (best[id] <= nextCost) {
+                metrics.pruned();
+                return;
+            }
+            best[id] = nextCost;
+            heap.offer(id, informed ? nextCost + packed.heuristic(next, scratch, entering) : nextCost);
+            metrics.enqueued();
+        }
+    }
+
+    //  A* in rounds: every state whose f = cost + heuristic equals the lowest pending f is expanded by a fork/join
+    //  pool, so idle workers steal ranges of the round. Best costs and pending rounds live in lock-striped
+    //  shards picked by state hash. With a consistent heuristic a round only feeds itself or later rounds,
+    //  and a state never sits in one round twice, so the answer does not depend on the thread count.
+    //  A cheaper offer drops the pricier entry still pending, so rounds and counters do not depend on it either:
+    //  enqueued counts states as they are taken into a round, every losing offer counts as pruned once.
+    static class ParallelSearch {
+        static final int SHARDS = 64;
+        static final int LEAF = 32;
+
+        final Packed packed;
+        final ForkJoinPool pool;
+        final Shard[] shards = new Shard[SHARDS];
+        final SearchMetrics metrics;
+
+        ParallelSearch(Packed packed, ForkJoinPool pool, SearchMetrics metrics) {
+            this.packed = packed;
+            this.pool = pool;
+            this.metrics = metrics;
+            for (int k = 0; k < SHARDS; k++) {
+                shards[k] = new Shard();
+            }
+        }
+
+        static class Shard {
+            final LongIntMap best = new LongIntMap(1 << 10);
+            final TreeMap<Long, Bucket> pending = new TreeMap<>();
+        }
+
+        static class Bucket {
+            long[] states = new long[16];
+            int size;
+
+            void add(long state) {
+                if (size == states.length) states = Arrays.copyOf(states, size * 2);
+                states[size++] = state;
+            }
+
+            boolean remove(long state) {
+                for (int k = 0; k < size; k++) {
+                    if (states[k] == state) {
+                        states[k] = states[--size];
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+
+        Shard shard(long state) {
+            long hash = state * 0x9E3779B97F4A7C15L;
+            return shards[(int) (hash >>> 58)];
+        }
+
+        void offer(long state, int cost, long f) {
+            Shard shard = shard(state);
+            synchronized (shard) {
+                int known = shard.best.get(state, Integer.MAX_VALUE);
+                if (known <= cost) {
+                    metrics.pruned();
+                    return;
+                }
+                shard.best.put(state, cost);
+                if (known != Integer.MAX_VALUE) {
+                    long staleF = f + known - cost;
+                    Bucket stale = shard.pending.get(staleF);
+                    if (stale != null && stale.remove(state)) {
+                        metrics.pruned();
+                        if (stale.size == 0) shard.pending.remove(staleF);
+                    }
+                }
+                shard.pending.computeIfAbsent(f, key -> new Bucket()).add(state);
+            }
+        }
+
+        int cost(long state) {
+            Shard shard = shard(state);
+            synchronized (shard) {
+                return shard.best.get(state, Integer.MAX_VALUE);
+            }
+        }
+
+        //  Lowest pending f, its states are taken out of every shard and sorted so rounds run in a fixed order
+        long[] nextRound(long[] f) {
+            f[0] = Long.MAX_VALUE;
+            for (Shard shard : shards) {
+                if (!shard.pending.isEmpty()) f[0] = Math.min(f[0], shard.pending.firstKey());
+            }
+            if (f[0] == Long.MAX_VALUE) return null;
+            Bucket round = new Bucket();
+            for (Shard shard : shards) {
+                Bucket bucket = shard.pending.remove(f[0]);
+                if (bucket == null) continue;
+                for (int k = 0; k < bucket.size; k++) {
+                    round.add(bucket.states[k]);
+                    metrics.enqueued();
+                }
+            }
+            long[] states = Arrays.copyOf(round.states, round.size);
+            Arrays.sort(states);
+            return states;
+        }
+
+        long run(long initial) {
+            offer(initial, 0, packed.heuristic(initial, new byte[packed.cells], new int[5]));
+            long[] f = new long[1];
+            for (long[] round = nextRound(f); round != null; round = nextRound(f)) {
+                metrics.queueDepth(round.length);
+                for (long state : round) {
+                    if (state == packed.goal) {
+                        metrics.solution(f[0]);
+                        return f[0];
+                    }
+                }
+                pool.invoke(new Expand(round, f[0], 0, round.length));
+            }
+            throw new IllegalStateException("Amphipods never settle");
+        }
+
+        class Expand extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            final long[] round;
+            final long f;
+            final int from;
+            final int to;
+
+            Expand(long[] round, long f, int from, int to) {
+                this.round = round;
+                this.f = f;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > LEAF) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new Expand(round, f, from, middle), new Expand(round, f, middle, to));
+                    return;
+                }
+                byte[] cells = new byte[packed.cells];
+                byte[] scratch = new byte[packed.cells];
+                int[] entering = new int[5];
+                for (int k = from; k < to; k++) {
+                    long state = round[k];
+                    int cost = cost(state);
+                    //  Found a cheaper way in since it was queued for this round
+                    if (cost + packed.heuristic(state, scratch, entering) != f) {
+                        metrics.pruned();
+                        continue;
+                    }
+                    metrics.expanded();
+                    packed.forEachMove(state, cells, true, (next, moveCost) -> {
+                        int nextCost = cost + moveCost;
+                        offer(next, nextCost, nextCost + packed.heuristic(next, scratch, entering));
+                    });
+                }
+            }
+        }
+    }
+
     @Test
     void testPath() {
         assertEquals(
@@ -225,6 +686,27 @@ class Day23 {
                 path(Pos.of(2, 3), Pos.of(1, 4)));
     }
 
+    @Test
+    void pathTables() {
+        Packed packed = new Packed(4);
+        for (int from = 0; from < 16; from++) {
+            Pos room = Pos.of(2 + from % 4, Packed.ROOM_COLUMNS[from / 4]);
+            for (int stop = 0; stop < Packed.STOPS; stop++) {
+                List<Pos> path = path(room, hallwayStops.get(stop));
+                int mask = 0;
+                for (Pos pos : path) {
+                    //  Doorways are never stopped at, so they have no cell
+                    int cell = pos.i() == 1
+                            ? Arrays.binarySearch(Packed.STOP_COLUMNS, pos.j())
+                            : packed.room((pos.j() - 3) / 2, pos.i() - 2);
+                    if (cell >= 0) mask |= 1 << cell;
+                }
+                assertEquals(path.size() - 1, packed.exitSteps[from * Packed.STOPS + stop]);
+                assertEquals(mask, packed.exitMasks[from * Packed.STOPS + stop]);
+            }
+        }
+    }
+
     Burrow parseInput(List<String> lines, Map<Species, List<Pos>> homeRoomsFor) {
         Burrow burrow = new Burrow(0, homeRoomsFor);
         for (int i = 0; i < lines.size(); i++) {
@@ -242,21 +724,14 @@ class Day23 {
     long solution1(Input raw) {
         Burrow burrow = parseInput(raw.asListOfStrings(), homeRoomsForPart1);
 
-        Set<Burrow> burrows = explore(burrow);
-
-        return burrows.stream()
-                .min(comparing(Burrow::cost))
-                .map(Burrow::cost)
-                .orElseThrow();
+        return new Packed(2).minCost(burrow);
     }
 
-    private Set<Burrow> explore(Burrow initial) {
+    private Set<Burrow> explore(Burrow initial, SearchMetrics metrics) {
         Set<Burrow> result = new HashSet<>();
 
         long minCompleted = Long.MAX_VALUE;
 
-        int iteration = 0;
-
         PriorityQueue<Burrow> toExplore = new PriorityQueue<>(
                 comparing(Burrow::moves)
                         .reversed()
@@ -268,9 +743,10 @@ class Day23 {
             Burrow burrow = toExplore.poll();
             assert burrow != null;
 
-            iteration++;
+            metrics.queueDepth(toExplore.size());
 
             if (burrow.cost > minCompleted) {
+                metrics.pruned();
                 continue;
             }
 
@@ -281,9 +757,12 @@ class Day23 {
                 if (burrow.cost < minCompleted) {
                     minCompleted = burrow.cost;
                 }
+                metrics.solution(burrow.cost);
                 continue;
             }
 
+            metrics.expanded();
+
             for (Pos from : tenants) {
                 for (Pos to : burrow.possibleTargets(from)) {
                     if (burrow.map.get(to) != null) {
@@ -303,15 +782,9 @@ class Day23 {
 
                     if (moved.cost < minCompleted) {
                         toExplore.offer(moved);
-                    }
-
-                    if (toExplore.size() % 100000 == 0 || iteration % 100000 == 0) {
-                        System.out.println(LocalDateTime.now()
-                                + " in queue=" + toExplore.size()
-                                + ", processed=" + iteration
-                                + ", completed=" + result.size()
-                                + "(" + result.stream().map(Burrow::cost).toList() + ")");
-                        System.out.println(moved);
+                        metrics.enqueued();
+                    } else {
+                        metrics.pruned();
                     }
                 }
             }
@@ -324,8 +797,7 @@ class Day23 {
     void part1() {
         Input input = getInput();
         assertEquals(12521, solution1(input.file("test1.txt")));
-        //  Took 10 minutes
-//        assertEquals(17120, solution1(input));
+        assertEquals(17120, solution1(input));
     }
 
     long solution2(Input raw) {
@@ -334,19 +806,135 @@ class Day23 {
         lines.add(4, "  #D#B#A#C#");
         Burrow burrow = parseInput(lines, homeRoomsForPart2);
 
-        Set<Burrow> burrows = explore(burrow);
-
-        return burrows.stream()
-                .min(comparing(Burrow::cost))
-                .map(Burrow::cost)
-                .orElseThrow();
+        return new Packed(4).minCost(burrow);
     }
 
     @Test
     void part2() {
         Input input = getInput();
-        //  Too slow
-//        assertEquals(44169, solution2(input.file("test1.txt")));
+        assertEquals(44169, solution2(input.file("test1.txt")));
         assertEquals(47234, solution2(input));
     }
+
+    //  Runs the exhaustive explore over 3.9M states, excluded from the unit suite
+    @Test
+    @Tag("slow")
+    void exploredStates() {
+        Input test1 = getInput().file("test1.txt");
+
+        Burrow burrow = parseInput(test1.asListOfStrings(), homeRoomsForPart1);
+        SearchCounters exhaustive = new SearchCounters();
+        List<SearchCounters.Sample> samples = new CopyOnWriteArrayList<>();
+        SearchCounters.Reporter reporter = exhaustive.report(Duration.ofSeconds(1), samples::add);
+        try {
+            assertEquals(12521, explore(burrow, exhaustive).stream().mapToLong(Burrow::cost).min().orElseThrow());
+        } finally {
+            reporter.close();
+        }
+        //  Periodic samples during the run, then a final one on close
+        for (int k = 1; k < samples.size(); k++) {
+            assertTrue(samples.get(k - 1).expanded() <= samples.get(k).expanded());
+        }
+        assertEquals(exhaustive.expandedCount(), samples.get(samples.size() - 1).expanded());
+
+        Packed packed = new Packed(2);
+        SearchCounters dijkstra = new SearchCounters();
+        assertEquals(12521, new Search(packed, false, dijkstra).run(packed.encode(burrow)));
+        assertTrue(dijkstra.expandedCount() < exhaustive.expandedCount());
+    }
+
+    @Test
+    void aStarExpandsFewerStates() {
+        Burrow burrow = parseInput(getInput().file("test1.txt").asListOfStrings(), homeRoomsForPart1);
+        Packed packed = new Packed(2);
+        SearchCounters dijkstra = new SearchCounters();
+        SearchCounters aStar = new SearchCounters();
+        assertEquals(12521, new Search(packed, false, dijkstra).run(packed.encode(burrow)));
+        assertEquals(12521, new Search(packed, true, aStar).run(packed.encode(burrow)));
+        assertTrue(aStar.expandedCount() < dijkstra.expandedCount());
+
+        List<String> lines = getInput().asListOfStrings();
+        lines.add(3, "  #D#C#B#A#");
+        lines.add(4, "  #D#B#A#C#");
+        burrow = parseInput(lines, homeRoomsForPart2);
+        packed = new Packed(4);
+        dijkstra = new SearchCounters();
+        aStar = new SearchCounters();
+        assertEquals(47234, new Search(packed, false, dijkstra).run(packed.encode(burrow)));
+        assertEquals(47234, new Search(packed, true, aStar).run(packed.encode(burrow)));
+        assertTrue(aStar.expandedCount() < dijkstra.expandedCount(),
+                aStar.expandedCount() + " vs " + dijkstra.expandedCount());
+    }
+
+    @Test
+    void parallelSearchIsDeterministic() {
+        Input input = getInput();
+        Input test1 = input.file("test1.txt");
+        Packed part1 = new Packed(2);
+        assertParallelSearch(part1, part1.encode(parseInput(test1.asListOfStrings(), homeRoomsForPart1)), 12521);
+        assertParallelSearch(part1, part1.encode(parseInput(input.asListOfStrings(), homeRoomsForPart1)), 17120);
+        Packed part2 = new Packed(4);
+        assertParallelSearch(part2, part2.encode(unfolded(test1)), 44169);
+        assertParallelSearch(part2, part2.encode(unfolded(input)), 47234);
+    }
+
+    private Burrow unfolded(Input raw) {
+        List<String> lines = raw.asListOfStrings();
+        lines.add(3, "  #D#C#B#A#");
+        lines.add(4, "  #D#B#A#C#");
+        return parseInput(lines, homeRoomsForPart2);
+    }
+
+    //  Same cost and the same counters with one worker and with several
+    private static void assertParallelSearch(Packed packed, long initial, long expected) {
+        SearchCounters.Sample single = null;
+        for (int threads : new int[]{1, Math.max(4, Runtime.getRuntime().availableProcessors())}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                SearchCounters counters = new SearchCounters();
+                assertEquals(expected, new ParallelSearch(packed, pool, counters).run(initial));
+                SearchCounters.Sample sample = counters.sample();
+                if (single == null) {
+                    single = sample;
+                } else {
+                    assertEquals(single.expanded(), sample.expanded());
+                    assertEquals(single.enqueued(), sample.enqueued());
+                    assertEquals(single.pruned(), sample.pruned());
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    //  Timing only, excluded from the unit suite
+    @Test
+    @Tag("benchmark")
+    void parallelScaling() {
+        List<String> lines = getInput().asListOfStrings();
+        lines.add(3, "  #D#C#B#A#");
+        lines.add(4, "  #D#B#A#C#");
+        Packed packed = new Packed(4);
+        long initial = packed.encode(parseInput(lines, homeRoomsForPart2));
+
+        int processors = Math.max(4, Runtime.getRuntime().availableProcessors());
+        long expanded = -1;
+        for (int threads = 1; threads <= processors; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (int warmup = 0; warmup < 2; warmup++) {
+                    new ParallelSearch(packed, pool, SearchMetrics.NONE).run(initial);
+                }
+                long start = System.nanoTime();
+                SearchCounters counters = new SearchCounters();
+                assertEquals(47234, new ParallelSearch(packed, pool, counters).run(initial));
+                if (expanded < 0) expanded = counters.expandedCount();
+                assertEquals(expanded, counters.expandedCount());
+                System.out.printf("%d threads: %d ms, %s%n",
+                        threads, (System.nanoTime() - start) / 1_000_000, counters.sample());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
 }
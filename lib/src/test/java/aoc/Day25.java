@@ -2,11 +2,6 @@ package aoc;
 
 import org.junit.jupiter.api.Test;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
-
 import static aoc.Input.forDay;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -24,79 +19,42 @@ class Day25 {
     }
 
     static class Field {
-        Map<Pos, Character> map = new HashMap<>();
-        int minI;
-        int maxI;
-        int minJ;
-        int maxJ;
+        IntGrid map;
+
+        Field(IntGrid map) {
+            this.map = map;
+        }
 
         @Override
         public String toString() {
-            StringBuilder builder = new StringBuilder();
-            for (int i = minI; i <= maxI; i++) {
-                for (int j = minJ; j <= maxJ; j++) {
-                    builder.append(map.getOrDefault(Pos.of(i, j), '.'));
-                }
-                builder.append('\n');
-            }
-            return builder.toString();
+            return map.toString();
         }
 
-        public Field readMap(List<String> input) {
-            for (int i = 0; i < input.size(); i++) {
-                String line = input.get(i);
-                for (int j = 0; j < line.length(); j++) {
-                    char ch = line.charAt(j);
-                    if (ch == '.') continue;
-                    map.put(new Pos(i, j), ch);
-                    if (minI > i) minI = i;
-                    if (maxI < i) maxI = i;
-                    if (minJ > j) minJ = j;
-                    if (maxJ < j) maxJ = j;
-                }
-            }
-            return this;
+        //  Herds move one after another, both wrap around the edges
+        public int step() {
+            int changed = move('>', 0, 1);
+            changed += move('v', 1, 0);
+            return changed;
         }
 
-        public int step() {
-            AtomicInteger changed = new AtomicInteger(0);
-            Field newField = new Field();
-            newField.minI = minI;
-            newField.minJ = minJ;
-            newField.maxI = maxI;
-            newField.maxJ = maxJ;
-            map.forEach((pos, ch) -> {
-                if (ch != '>') return;
-                int j = pos.j() + 1;
-                if (j > maxJ) j = minJ;
-                Pos next = new Pos(pos.i(), j);
-                if (map.get(next) == null) {
-                    newField.map.put(next, ch);
-                    changed.incrementAndGet();
-                } else {
-                    newField.map.put(pos, ch);
+        private int move(char herd, int di, int dj) {
+            IntGrid next = map.copy();
+            int changed = 0;
+            for (int i = 0; i < map.height(); i++) {
+                for (int j = 0; j < map.width(); j++) {
+                    if (map.get(i, j) != herd || map.getWrapped(i + di, j + dj) != '.') continue;
+                    next.set(i, j, '.');
+                    next.setWrapped(i + di, j + dj, herd);
+                    changed++;
                 }
-            });
-            map.forEach((pos, ch) -> {
-                if (ch != 'v') return;
-                int i = pos.i() + 1;
-                if (i > maxI) i = minI;
-                Pos next = new Pos(i, pos.j());
-                if (newField.map.get(next) == null
-                        && (!map.containsKey(next) || (map.get(next) == '>' && newField.map.get(next) == null))) {
-                    newField.map.put(next, ch);
-                    changed.incrementAndGet();
-                } else {
-                    newField.map.put(pos, ch);
-                }
-            });
-            map = newField.map;
-            return changed.get();
+            }
+            map = next;
+            return changed;
         }
     }
 
     Field parseInput(Input input) {
-        return new Field().readMap(input.asListOfStrings());
+        return new Field(IntGrid.of(input.asCharGrid()));
     }
 
     int solution1(Input raw) {
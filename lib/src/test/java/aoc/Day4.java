@@ -66,7 +66,7 @@ class Day4 {
         static Game load(Input raw) {
             List<String> lines = raw.asListOfStrings();
             Game game = new Game();
-            game.numbers = parseInts(",", lines.get(0));
+            game.numbers = raw.asIntCsv();
             int i = 1;
             while (i++ < lines.size()) {
                 Board board = new Board();
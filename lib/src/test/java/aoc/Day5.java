@@ -2,13 +2,11 @@ package aoc;
 
 import org.junit.jupiter.api.Test;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import static aoc.Input.forDay;
 import static java.lang.Integer.parseInt;
@@ -24,17 +22,18 @@ class Day5 {
 
     List<Line> parseInput(Input input) {
         Pattern pattern = Pattern.compile("(?<x1>\\d+),(?<x2>\\d+) -> (?<y1>\\d+),(?<y2>\\d+)");
-        return input.asListOfStrings()
-                .stream()
-                .map(pattern::matcher)
-                .filter(Matcher::find)
-                .map(matcher -> new Line(new Pos(
-                        parseInt(matcher.group("x1")),
-                        parseInt(matcher.group("x2"))),
-                        (new Pos(
-                                parseInt(matcher.group("y1")),
-                                parseInt(matcher.group("y2"))))))
-                .toList();
+        try (Stream<CharSequence> lines = input.lines()) {
+            return lines
+                    .map(pattern::matcher)
+                    .filter(Matcher::find)
+                    .map(matcher -> new Line(new Pos(
+                            parseInt(matcher.group("x1")),
+                            parseInt(matcher.group("x2"))),
+                            (new Pos(
+                                    parseInt(matcher.group("y1")),
+                                    parseInt(matcher.group("y2"))))))
+                    .toList();
+        }
     }
 
     long solution1(Input raw) {
@@ -43,7 +42,8 @@ class Day5 {
 
     private long solve(Input raw, Predicate<Line> filter) {
         List<Line> input = parseInput(raw);
-        Map<Pos, List<Line>> map = new HashMap<>();
+        LongSet covered = new LongSet(1 << 16);
+        LongSet overlapping = new LongSet();
         input.stream()
                 .filter(filter)
                 .forEach(line -> {
@@ -59,13 +59,14 @@ class Day5 {
                     int j = line.start.j();
 
                     for (int n = 0; n <= length; n++) {
-                        map.computeIfAbsent(new Pos(i, j), pos -> new ArrayList<>()).add(line);
+                        long point = Coord.of(i, j);
+                        if (!covered.add(point)) overlapping.add(point);
                         i += di;
                         j += dj;
                     }
                 });
 
-        return map.values().stream().filter(lines -> lines.size() > 1).count();
+        return overlapping.size();
     }
 
     @Test
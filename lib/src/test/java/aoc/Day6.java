@@ -21,10 +21,9 @@ class Day6 {
 
     long[] parseInput(Input input) {
         final long[] state = new long[9];
-        Arrays.stream(input.asListOfStrings().get(0)
-                .split(","))
-                .mapToInt(Integer::parseInt)
-                .forEach(n -> state[n]++);
+        for (int n : input.asIntCsv()) {
+            state[n]++;
+        }
         return state;
     }
 
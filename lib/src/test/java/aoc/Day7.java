@@ -29,8 +29,8 @@ class Day7 {
     }
 
     Map<Integer, Long> parseInput(Input input) {
-        return Arrays.stream(input.asListOfStrings().get(0).split(","))
-                .map(Integer::parseInt)
+        return Arrays.stream(input.asIntCsv())
+                .boxed()
                 .collect(groupingBy(identity(), counting()));
     }
 
@@ -5,7 +5,7 @@ import org.junit.jupiter.api.Test;
 import java.util.*;
 
 import static aoc.Input.forDay;
-import static java.lang.Character.MAX_VALUE;
+import static java.lang.Integer.MAX_VALUE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class Day9 {
@@ -20,35 +20,28 @@ class Day9 {
         return input;
     }
 
-    List<String> parseInput(Input input) {
-        return input.asListOfStrings();
+    IntGrid parseInput(Input input) {
+        return input.asIntGrid();
     }
 
     long solution1(Input raw) {
-        List<String> input = parseInput(raw);
+        IntGrid heights = parseInput(raw);
 
-        Map<Pos, Integer> lows = getLows(input);
-
-        return lows.values().stream().mapToInt(i -> i + 1).sum();
+        return getLows(heights).stream().mapToInt(low -> heights.get(low) + 1).sum();
     }
 
-    private Map<Pos, Integer> getLows(List<String> input) {
-        Map<Pos, Integer> lows = new HashMap<>();
-
-        for (int i = 0; i < input.size(); i++) {
-            String line = input.get(i);
-            for (int j = 0; j < line.length(); j++) {
-                char top = MAX_VALUE;
-                char right = MAX_VALUE;
-                char bottom = MAX_VALUE;
-                char left = MAX_VALUE;
-                if (j > 0) left = line.charAt(j - 1);
-                if (j < line.length() - 1) right = line.charAt(j + 1);
-                if (i > 0) top = input.get(i - 1).charAt(j);
-                if (i < input.size() - 1) bottom = input.get(i + 1).charAt(j);
-                char current = line.charAt(j);
-                if (current < top && current < right && current < bottom && current < left) {
-                    lows.put(new Pos(i, j), Integer.parseInt("" + current));
+    //  Cell indices lower than all of their neighbours, the outside counts as higher than any height
+    private List<Integer> getLows(IntGrid heights) {
+        List<Integer> lows = new ArrayList<>();
+
+        for (int i = 0; i < heights.height(); i++) {
+            for (int j = 0; j < heights.width(); j++) {
+                int current = heights.get(i, j);
+                if (current < heights.getOrDefault(i - 1, j, MAX_VALUE)
+                        && current < heights.getOrDefault(i, j + 1, MAX_VALUE)
+                        && current < heights.getOrDefault(i + 1, j, MAX_VALUE)
+                        && current < heights.getOrDefault(i, j - 1, MAX_VALUE)) {
+                    lows.add(heights.index(i, j));
                 }
             }
         }
@@ -63,16 +56,14 @@ class Day9 {
     }
 
     long solution2(Input raw) {
-        List<String> input = parseInput(raw);
-
-        Map<Pos, Integer> lows = getLows(input);
+        IntGrid heights = parseInput(raw);
 
         List<Integer> basinSizes = new ArrayList<>();
 
-        lows.keySet().forEach(low -> {
-            Set<Pos> basin = new HashSet<>();
-            explore(input, low, basin);
-            basinSizes.add(basin.size());
+        getLows(heights).forEach(low -> {
+            BitSet basin = new BitSet(heights.size());
+            explore(heights, heights.i(low), heights.j(low), basin);
+            basinSizes.add(basin.cardinality());
         });
 
         Comparator<Integer> reversed = Comparator.<Integer>naturalOrder().reversed();
@@ -83,24 +74,13 @@ class Day9 {
                 .reduce(1, (a, b) -> a * b);
     }
 
-    private void explore(List<String> input, Pos at, Set<Pos> basin) {
-        if (basin.contains(at)) return;
-        basin.add(at);
-        String line = input.get(at.i());
-        int i = at.i();
-        int j = at.j();
-        char top = MAX_VALUE;
-        char right = MAX_VALUE;
-        char bottom = MAX_VALUE;
-        char left = MAX_VALUE;
-        if (j > 0) left = line.charAt(j - 1);
-        if (j < line.length() - 1) right = line.charAt(j + 1);
-        if (i > 0) top = input.get(i - 1).charAt(j);
-        if (i < input.size() - 1) bottom = input.get(i + 1).charAt(j);
-        if (top < '9') explore(input, new Pos(i - 1, j), basin);
-        if (right < '9') explore(input, new Pos(i, j + 1), basin);
-        if (bottom < '9') explore(input, new Pos(i + 1, j), basin);
-        if (left < '9') explore(input, new Pos(i, j - 1), basin);
+    private void explore(IntGrid heights, int i, int j, BitSet basin) {
+        int index = heights.index(i, j);
+        if (basin.get(index)) return;
+        basin.set(index);
+        heights.forEachAdjacent(i, j, false, (ni, nj) -> {
+            if (heights.get(ni, nj) < 9) explore(heights, ni, nj, basin);
+        });
     }
 
     @Test
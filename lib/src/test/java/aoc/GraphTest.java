@@ -0,0 +1,125 @@
+package aoc;
+
+import aoc.Graph.UndirectedGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphTest {
+
+    private static UndirectedGraph<Pos, Long> grid(int n, long seed) {
+        Random random = new Random(seed);
+        UndirectedGraph<Pos, Long> graph = new UndirectedGraph<>();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i + 1 < n) graph.addEdge(new Pos(i, j), new Pos(i + 1, j), 1L + random.nextInt(9));
+                if (j + 1 < n) graph.addEdge(new Pos(i, j), new Pos(i, j + 1), 1L + random.nextInt(9));
+            }
+        }
+        return graph;
+    }
+
+    private static long pathCost(UndirectedGraph<Pos, Long> graph, ShortestPath<Pos> path) {
+        long cost = 0;
+        for (int k = 1; k < path.path().size(); k++) {
+            Pos to = path.path().get(k);
+            cost += graph.connections.get(path.path().get(k - 1)).stream()
+                    .filter(edge -> edge.key().equals(to))
+                    .mapToLong(Pair::value)
+                    .min()
+                    .orElseThrow();
+        }
+        return cost;
+    }
+
+    @Test
+    void bidirectionalMatchesDijkstra() {
+        int n = 400;
+        UndirectedGraph<Pos, Long> graph = grid(n, 2021);
+
+        for (Pos[] query : new Pos[][]{
+                {new Pos(0, 0), new Pos(n - 1, n - 1)},
+                {new Pos(n / 2, n / 2), new Pos(n / 2 + 40, n / 2 - 30)},
+                {new Pos(0, n - 1), new Pos(n - 1, 0)}}) {
+
+            ShortestPath<Pos> dijkstra = graph.shortestPath(query[0], query[1]);
+            ShortestPath<Pos> bidirectional = graph.bidirectional(query[0], query[1]);
+
+            assertEquals(dijkstra.cost(), bidirectional.cost());
+            assertEquals(query[0], bidirectional.path().get(0));
+            assertEquals(query[1], bidirectional.path().get(bidirectional.path().size() - 1));
+            assertEquals(bidirectional.cost(), pathCost(graph, bidirectional));
+            //  At least a tenth fewer nodes settled, measured 0.81, 0.48 and 0.79 of Dijkstra's for these queries
+            assertTrue(bidirectional.settled() * 10L < dijkstra.settled() * 9L,
+                    bidirectional.settled() + " vs " + dijkstra.settled());
+        }
+    }
+
+    @Test
+    void bidirectionalOnUnweightedGraph() {
+        UndirectedGraph<String, Void> graph = new UndirectedGraph<>();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "c");
+        graph.addEdge("c", "d");
+        graph.addEdge("a", "e");
+        graph.addEdge("e", "d");
+        graph.addEdge("x", "y");
+
+        assertEquals(2, graph.bidirectional("a", "d").cost());
+        assertEquals(3, graph.bidirectional("a", "d").path().size());
+        assertEquals(0, graph.bidirectional("c", "c").cost());
+        assertFalse(graph.bidirectional("a", "x").found());
+    }
+
+    @Test
+    void frozenGraphMatchesGraph() {
+        int n = 300;
+        UndirectedGraph<Pos, Long> graph = grid(n, 12);
+        FrozenGraph<Pos> frozen = graph.freeze();
+
+        Pos first = new Pos(n / 3, n / 4);
+        LongDistances<Pos> expected = graph.shortestPaths(first);
+        LongDistances<Pos> actual = frozen.shortestPaths(first);
+        Map<Pos, Long> generic = graph.dijkstra(first, weight -> weight, Long::sum, 0L);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(expected.get(new Pos(i, j)), actual.get(new Pos(i, j)));
+                assertEquals(expected.get(new Pos(i, j)), generic.get(new Pos(i, j)));
+            }
+        }
+
+        Pos target = new Pos(n - 1, n - 1);
+        assertEquals(expected.get(target), frozen.shortestPath(first, target).cost());
+        assertEquals(expected.get(target), frozen.aStar(first, target, Graph.manhattanHeuristic(target)).cost());
+    }
+
+    @Test
+    void unknownFirstOnlyReachesItself() {
+        UndirectedGraph<String, Long> graph = new UndirectedGraph<>();
+        graph.addEdge("a", "b", 5L);
+
+        assertEquals(Map.of("x", 0L), graph.dijkstraLong("x"));
+        assertEquals(Map.of("x", 0L), graph.dijkstra("x", weight -> weight, Long::sum, 0L));
+        assertEquals(0, graph.shortestPaths("x").get("x"));
+        assertFalse(graph.shortestPaths("x").reached("a"));
+    }
+
+    @Test
+    void queriesSeeEdgesAddedAfterFreezing() {
+        UndirectedGraph<String, Long> graph = new UndirectedGraph<>();
+        graph.addEdge("a", "b", 5L);
+        graph.addEdge("b", "c", 5L);
+        assertEquals(10, graph.shortestPaths("a").get("c"));
+        assertEquals(1, graph.countPaths("a", "c", (node, visits) -> visits == 0));
+
+        graph.addEdge("a", "c", 3L);
+        assertEquals(3, graph.shortestPaths("a").get("c"));
+        assertEquals(2, graph.countPaths("a", "c", (node, visits) -> visits == 0));
+        assertEquals(3, graph.aStar("a", "c", node -> 0).cost());
+    }
+}
@@ -0,0 +1,276 @@
+package aoc;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static aoc.Input.forDay;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InputTest {
+
+    //  The per-day parsing that asIntCsv replaces
+    private static int[] splitCsv(Input input) {
+        return Arrays.stream(input.asListOfStrings().get(0).split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    //  The per-day parsing that asDigitGrid replaces
+    private static byte[] perCellDigits(Input input) {
+        List<String> lines = input.asListOfStrings();
+        byte[] cells = new byte[lines.size() * lines.get(0).length()];
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            for (int j = 0; j < line.length(); j++) {
+                cells[i * line.length() + j] = (byte) Long.parseLong(String.valueOf(line.charAt(j)));
+            }
+        }
+        return cells;
+    }
+
+    @Test
+    void intCsv() {
+        Input input = forDay(7);
+
+        assertArrayEquals(splitCsv(input), input.asIntCsv());
+    }
+
+    @Test
+    void digitGrid() {
+        Input input = forDay(15);
+
+        ByteGrid grid = input.asDigitGrid();
+
+        assertEquals(100, grid.width());
+        assertEquals(100, grid.height());
+        assertArrayEquals(perCellDigits(input), grid.cells());
+    }
+
+    private static <T> T time(String name, Supplier<T> parser) {
+        T result = parser.get();
+        for (int k = 0; k < 200; k++) parser.get();
+        long start = System.nanoTime();
+        for (int k = 0; k < 1000; k++) result = parser.get();
+        System.out.printf("%-24s %8d ns/op%n", name, (System.nanoTime() - start) / 1000);
+        return result;
+    }
+
+    //  Timing only, excluded from the unit suite, see the benchmark task
+    @Test
+    @Tag("benchmark")
+    void parserBenchmark() {
+        Input csv = forDay(7);
+        assertArrayEquals(time("split + parseInt", () -> splitCsv(csv)), time("asIntCsv", csv::asIntCsv));
+
+        Input digits = forDay(15);
+        assertArrayEquals(time("charAt + parseLong", () -> perCellDigits(digits)),
+                time("asDigitGrid", digits::asDigitGrid).cells());
+    }
+
+    @Test
+    void charGrid() {
+        Input input = forDay(25);
+
+        List<String> lines = input.asListOfStrings();
+        ByteGrid grid = input.asCharGrid();
+
+        assertEquals(lines.size(), grid.height());
+        assertEquals(lines.get(0).length(), grid.width());
+        for (int i = 0; i < grid.height(); i++) {
+            for (int j = 0; j < grid.width(); j++) {
+                assertEquals(lines.get(i).charAt(j), (char) grid.get(i, j));
+            }
+        }
+    }
+
+    //  Answers every day after 200ms, counting requests and the most served at once
+    private static class StandIn {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final HttpServer server;
+
+        StandIn(int status, String body) throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/2021/day/", exchange -> {
+                requests.incrementAndGet();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            });
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        Input input(Path root) throws IOException {
+            Path session = Files.writeString(root.resolve(".session"), "test");
+            URI uri = URI.create("http://localhost:" + server.getAddress().getPort());
+            return forDay(3).from(uri, session, root);
+        }
+
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentFetchesDownloadOnce(@TempDir Path root) throws Exception {
+        StandIn server = new StandIn(200, "1\n2\n3\n");
+        try {
+            Input input = server.input(root);
+
+            ExecutorService executor = Executors.newFixedThreadPool(16);
+            List<Future<Path>> fetches = new ArrayList<>();
+            for (int k = 0; k < 16; k++) {
+                fetches.add(executor.submit(input::fetchInput));
+            }
+            for (Future<Path> fetch : fetches) {
+                assertEquals(root.resolve("03/input.txt"), fetch.get());
+            }
+            executor.shutdown();
+
+            assertEquals(1, server.requests.get());
+            assertArrayEquals(new long[]{1, 2, 3}, input.asLongArray());
+            try (Stream<Path> files = Files.list(root.resolve("03"))) {
+                assertEquals(List.of("input.txt"), files.map(path -> path.getFileName().toString()).toList());
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void failedFetchWritesNothing(@TempDir Path root) throws Exception {
+        StandIn server = new StandIn(500, "Oops");
+        try {
+            Input input = server.input(root);
+
+            RuntimeException error = assertThrows(RuntimeException.class, input::fetchInput);
+            assertTrue(error.getMessage().contains("500"));
+            assertFalse(Files.exists(root.resolve("03/input.txt")));
+
+            //  Failures are not cached, the next call tries again
+            assertThrows(RuntimeException.class, input::fetchInput);
+            assertEquals(2, server.requests.get());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void cachedReusesSnapshot(@TempDir Path temp) throws IOException {
+        Path root = temp.resolve("original");
+        Files.createDirectories(root.resolve("01"));
+        Files.writeString(root.resolve("01/input.txt"), "10\n20\n30\n");
+        Input input = forDay(1).from(URI.create("http://localhost"), root.resolve(".session"), root);
+
+        AtomicInteger parsed = new AtomicInteger();
+        Snapshot<long[]> counting = Snapshot.of("longs", raw -> {
+            parsed.incrementAndGet();
+            return raw.asLongArray();
+        }, Snapshot.LONGS::write, Snapshot.LONGS::read);
+
+        assertArrayEquals(new long[]{10, 20, 30}, input.cached(counting));
+        assertArrayEquals(new long[]{10, 20, 30}, input.cached(counting));
+        assertEquals(1, parsed.get());
+        assertTrue(Files.exists(root.resolve("01/input.txt.longs.bin")));
+
+        //  Same content under another path is read from the copied snapshot
+        Path copy = temp.resolve("copy");
+        Files.createDirectories(copy.resolve("01"));
+        Files.copy(root.resolve("01/input.txt"), copy.resolve("01/input.txt"));
+        Files.copy(root.resolve("01/input.txt.longs.bin"), copy.resolve("01/input.txt.longs.bin"));
+        Input copied = forDay(1).from(URI.create("http://localhost"), copy.resolve(".session"), copy);
+        assertArrayEquals(new long[]{10, 20, 30}, copied.cached(counting));
+        assertEquals(1, parsed.get());
+
+        //  Changed content invalidates the snapshot
+        Files.writeString(copy.resolve("01/input.txt"), "40\n");
+        assertArrayEquals(new long[]{40}, copied.cached(counting));
+        assertEquals(2, parsed.get());
+
+        //  Another snapshot of the same file gets its own result, and its parser may use the cache itself
+        Snapshot<Long> sum = Snapshot.of("sum", raw -> Arrays.stream(raw.cached(counting)).sum(),
+                DataOutput::writeLong, DataInput::readLong);
+        assertEquals(60, input.cached(sum));
+        assertArrayEquals(new long[]{10, 20, 30}, input.cached(counting));
+        assertEquals(2, parsed.get());
+        assertTrue(Files.exists(root.resolve("01/input.txt.sum.bin")));
+
+        //  Parsed lines are as immutable as the ones read back from a snapshot
+        assertEquals(List.of("10", "20", "30"), input.cached(Snapshot.LINES));
+        assertThrows(UnsupportedOperationException.class, () -> input.cached(Snapshot.LINES).add("40"));
+    }
+
+    @Test
+    void longsPerLine(@TempDir Path root) throws IOException {
+        Files.createDirectories(root.resolve("01"));
+        Input input = forDay(1).from(URI.create("http://localhost"), root.resolve(".session"), root);
+
+        Files.writeString(root.resolve("01/input.txt"), "199\r\n-7\n0\n12345678901");
+        assertArrayEquals(new long[]{199, -7, 0, 12345678901L}, input.asLongArray());
+
+        Files.writeString(root.resolve("01/input.txt"), "1,2\n");
+        assertThrows(NumberFormatException.class, input::asLongArray);
+        Files.writeString(root.resolve("01/input.txt"), "1\n\n2\n");
+        assertThrows(NumberFormatException.class, input::asLongArray);
+    }
+
+    @Test
+    void prefetchCalendar(@TempDir Path root) throws Exception {
+        StandIn server = new StandIn(200, "1\n2\n");
+        try {
+            List<CompletableFuture<long[]>> days = server.input(root).prefetchCalendar(Input::asLongArray);
+            CompletableFuture.allOf(days.toArray(CompletableFuture[]::new)).get();
+
+            assertEquals(25, days.size());
+            for (CompletableFuture<long[]> day : days) {
+                assertArrayEquals(new long[]{1, 2}, day.get());
+            }
+            assertEquals(25, server.requests.get());
+            //  Fetching one by one would never have two requests in flight
+            assertTrue(server.maxInFlight.get() > 1, "At most " + server.maxInFlight.get() + " in flight");
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package aoc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntGridTest {
+
+    //  1 2 3
+    //  4 5 6
+    private final IntGrid grid = new IntGrid(3, 2, new int[]{1, 2, 3, 4, 5, 6});
+
+    @Test
+    void modes() {
+        assertEquals(6, grid.get(1, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.get(0, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.get(-1, 0));
+        assertEquals(-1, grid.getOrDefault(0, 3, -1));
+        assertEquals(4, grid.getWrapped(-1, 3));
+        assertEquals(3, grid.getWrapped(2, -1));
+
+        IntGrid padded = grid.padded(1, 0);
+        assertEquals(5, padded.width());
+        assertEquals(4, padded.height());
+        assertEquals(0, padded.get(0, 0));
+        assertEquals(1, padded.get(1, 1));
+        assertEquals(grid, padded.subGrid(1, 1, 3, 2));
+    }
+
+    @Test
+    void views() {
+        assertArrayEquals(new int[]{4, 5, 6}, grid.row(1).toArray());
+        assertArrayEquals(new int[]{2, 5}, grid.column(1).toArray());
+        assertEquals(3, grid.count(value -> value % 2 == 0));
+    }
+
+    @Test
+    void neighbours() {
+        List<Integer> values = new ArrayList<>();
+        grid.forEachAdjacent(0, 0, true, (i, j) -> values.add(grid.get(i, j)));
+        assertEquals(List.of(2, 5, 4), values);
+
+        values.clear();
+        grid.forEachAdjacentWrapped(0, 0, false, (i, j) -> values.add(grid.get(i, j)));
+        assertEquals(List.of(4, 4, 2, 3), values);
+    }
+
+    @Test
+    void fromInput() {
+        IntGrid digits = Input.forDay(9).file("test1.txt").asIntGrid();
+        assertEquals(10, digits.width());
+        assertEquals(5, digits.height());
+        assertEquals(2, digits.get(0, 0));
+        assertEquals(8, digits.get(4, 9));
+    }
+}
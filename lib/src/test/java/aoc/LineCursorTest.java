@@ -0,0 +1,79 @@
+package aoc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class LineCursorTest {
+
+    private static List<String> lines(ReadableByteChannel channel, int window) {
+        List<String> lines = new ArrayList<>();
+        try (LineCursor cursor = new LineCursor(channel, window)) {
+            while (cursor.next()) lines.add(cursor.line().toString());
+            assertFalse(cursor.next());
+        }
+        return lines;
+    }
+
+    private static ReadableByteChannel channel(String content) {
+        return Channels.newChannel(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    //  Hands out at most one byte per read
+    private static ReadableByteChannel trickle(String content) {
+        ByteBuffer source = ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII));
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer target) {
+                if (!source.hasRemaining()) return -1;
+                target.put(source.get());
+                return 1;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Test
+    void lineSpanningTwoReads() {
+        //  The first read stops inside "cd", which has to be compacted to the front of the window
+        assertEquals(List.of("ab", "cd", "ef"), lines(channel("ab\ncd\nef\n"), 4));
+        assertEquals(List.of("ab", "cd", "ef"), lines(channel("ab\r\ncd\r\nef\r\n"), 4));
+    }
+
+    @Test
+    void lineLongerThanWindow() {
+        assertEquals(List.of("a", "bcdefghijklmnop", "q"), lines(channel("a\nbcdefghijklmnop\nq\n"), 4));
+        assertEquals(List.of("abcdefghij", "k"), lines(trickle("abcdefghij\r\nk\n"), 2));
+    }
+
+    @Test
+    void lastLineWithoutNewline() {
+        assertEquals(List.of("ab", "cdef"), lines(channel("ab\ncdef"), 4));
+        assertEquals(List.of("ab", "cdefgh"), lines(trickle("ab\ncdefgh"), 4));
+        assertEquals(List.of("abcdefgh"), lines(channel("abcdefgh"), 4));
+    }
+
+    @Test
+    void emptyLines() {
+        assertEquals(List.of(), lines(channel(""), 4));
+        assertEquals(List.of("", "", "a"), lines(channel("\n\na"), 1));
+        assertEquals(List.of("", ""), lines(trickle("\r\n\n"), 1));
+    }
+}
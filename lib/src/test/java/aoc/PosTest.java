@@ -0,0 +1,148 @@
+package aoc;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.IntBinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PosTest {
+
+    @Test
+    void interned() {
+        assertSame(Pos.of(3, 7), Pos.of(3, 7));
+        assertSame(Pos.of(100, 100), Pos.of(100, 100));
+        assertNotSame(Pos.of(101, 0), Pos.of(101, 0));
+        assertNotSame(Pos.of(-1, 0), Pos.of(-1, 0));
+        assertEquals(new Pos(-1, 0), Pos.of(-1, 0));
+    }
+
+    @Test
+    void invalidPoolRanges() {
+        int min = Pos.poolMin();
+        int max = Pos.poolMax();
+        assertThrows(IllegalArgumentException.class, () -> Pos.pool(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> Pos.pool(Integer.MIN_VALUE, Integer.MAX_VALUE - 1));
+        assertThrows(IllegalArgumentException.class, () -> Pos.pool(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(min, Pos.poolMin());
+        assertEquals(max, Pos.poolMax());
+    }
+
+    @Test
+    void visitorsMatchCollections() {
+        Pos pos = Pos.of(4, 9);
+        List<Pos> visited = new ArrayList<>();
+        pos.forEachAdjacentWithDiagonals((i, j) -> visited.add(Pos.of(i, j)));
+        assertEquals(8, visited.size());
+        assertEquals(pos.adjacentWithDiagonals(), Set.copyOf(visited));
+
+        visited.clear();
+        pos.forEachAdjacentWithoutDiagonals((i, j) -> visited.add(Pos.of(i, j)));
+        assertEquals(List.of(Pos.of(3, 9), Pos.of(5, 9), Pos.of(4, 10), Pos.of(4, 8)), visited);
+        assertEquals(pos.adjacentWithoutDiagonals(), Set.copyOf(visited));
+
+        visited.clear();
+        pos.forEachSurrounding3x3Ordered((i, j) -> visited.add(Pos.of(i, j)));
+        assertEquals(pos.surrounding3x3Ordered(), visited);
+    }
+
+    @Test
+    void concurrentMissesAgree() throws Exception {
+        int min = Pos.poolMin();
+        int max = Pos.poolMax();
+        Pos.pool(-50, 500);
+        try {
+            int threads = Runtime.getRuntime().availableProcessors() * 2;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CyclicBarrier start = new CyclicBarrier(threads);
+            List<Future<Pos[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    Pos[] seen = new Pos[551 * 551];
+                    for (int i = -50; i <= 500; i++) {
+                        for (int j = -50; j <= 500; j++) {
+                            seen[(i + 50) * 551 + j + 50] = Pos.of(i, j);
+                        }
+                    }
+                    return seen;
+                }));
+            }
+            Pos[] first = results.get(0).get();
+            for (Future<Pos[]> result : results) {
+                Pos[] seen = result.get();
+                for (int k = 0; k < seen.length; k++) {
+                    assertSame(first[k], seen[k]);
+                }
+            }
+            executor.shutdown();
+        } finally {
+            Pos.pool(min, max);
+        }
+    }
+
+    private static final int ROUNDS = 200;
+
+    //  Nanoseconds per lookup
+    private static double run(int threads, IntBinaryOperator work) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CyclicBarrier start = new CyclicBarrier(threads + 1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            results.add(executor.submit(() -> {
+                start.await();
+                int sink = 0;
+                for (int k = 0; k < ROUNDS; k++) {
+                    sink += work.applyAsInt(seed, k);
+                }
+                return sink;
+            }));
+        }
+        start.await();
+        long begin = System.nanoTime();
+        for (Future<Integer> result : results) result.get();
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return (double) elapsed / ((long) threads * ROUNDS * 101 * 101);
+    }
+
+    //  Timing only, excluded from the unit suite, see the benchmark task
+    @Test
+    @Tag("benchmark")
+    void contentionBenchmark() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        //  Each thread fills its own long-lived array, so escape analysis cannot remove the allocations
+        Pos[][] rows = new Pos[threads][101 * 101];
+        IntBinaryOperator interned = (seed, round) -> {
+            Pos[] row = rows[seed];
+            for (int i = 0; i <= 100; i++) {
+                for (int j = 0; j <= 100; j++) {
+                    row[i * 101 + j] = Pos.of(i, (j + seed + round) % 101);
+                }
+            }
+            return row[round % row.length].j();
+        };
+        IntBinaryOperator allocated = (seed, round) -> {
+            Pos[] row = rows[seed];
+            for (int i = 0; i <= 100; i++) {
+                for (int j = 0; j <= 100; j++) {
+                    row[i * 101 + j] = new Pos(i, (j + seed + round) % 101);
+                }
+            }
+            return row[round % row.length].j();
+        };
+
+        for (int warmup = 0; warmup < 5; warmup++) {
+            run(threads, interned);
+            run(threads, allocated);
+        }
+        System.out.printf("%d threads: Pos.of %.2f ns, new Pos %.2f ns per position%n",
+                threads, run(threads, interned), run(threads, allocated));
+    }
+}
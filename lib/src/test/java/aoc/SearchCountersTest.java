@@ -0,0 +1,51 @@
+package aoc;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCountersTest {
+
+    @Test
+    void countsIndexedDijkstra() {
+        GridGraph grid = new GridGraph(new byte[]{1, 1, 1, 9, 9, 1, 1, 1, 1}, 3, 3);
+        SearchCounters counters = new SearchCounters();
+        ShortestPath<Integer> path = grid.aStar(0, 8, node -> 0, counters);
+
+        SearchCounters.Sample sample = counters.sample();
+        assertEquals(4, path.cost());
+        assertEquals(path.settled() - 1, sample.expanded());
+        assertEquals(4, sample.bestCost());
+        assertTrue(sample.enqueued() >= sample.expanded());
+        assertTrue(sample.pruned() > 0);
+    }
+
+    @Test
+    void reporterSamplesUntilClosed() throws Exception {
+        SearchCounters counters = new SearchCounters();
+        List<SearchCounters.Sample> samples = new CopyOnWriteArrayList<>();
+        SearchCounters.Reporter reporter = counters.report(Duration.ofMillis(10), samples::add);
+        try {
+            for (int k = 0; k < 5; k++) {
+                counters.expanded();
+                counters.solution(100 - k);
+                Thread.sleep(20);
+            }
+        } finally {
+            reporter.close();
+        }
+        int reported = samples.size();
+        Thread.sleep(50);
+
+        assertEquals(reported, samples.size());
+        assertTrue(reported >= 2);
+        SearchCounters.Sample last = samples.get(reported - 1);
+        assertEquals(5, last.expanded());
+        assertEquals(96, last.bestCost());
+        assertFalse(new SearchCounters().sample().solved());
+    }
+}